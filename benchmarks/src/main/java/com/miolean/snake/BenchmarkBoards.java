@@ -0,0 +1,64 @@
+/*
+ * Miles Krusniak
+ * BenchmarkBoards.java (Snake)
+ *
+ * BenchmarkBoards sets up games in particular states for the benchmarks to
+ * start from, e.g. a board that the snake already fills most of.
+ */
+
+package com.miolean.snake;
+
+public class BenchmarkBoards {
+    /*
+     * Ready-made games for benchmarking.
+     *
+     * Extends: Nothing
+     * Implements: Nothing
+     */
+    
+    public static SnakeEngine filled(int size, double fill, long seed) {
+        /*
+         * Makes a game where the snake takes up about fill of the inside of the board. The snake
+         * gets there by sweeping back and forth across the board a row at a time, so it never dies
+         * on the way. A 30x30 board can be filled to about 90% this way.
+         *
+         * Parameters:
+         * size - the length and width of the board, walls included
+         * fill - how much of the inside of the board the snake should take up, from 0 to 1
+         * seed - seed for the game's random numbers
+         * Returns: The game
+         */
+        SnakeEngine engine = new SnakeEngine(size, new GameRandom(seed), PickupRegistry.defaults());
+        int target = (int) (fill * (size - 2) * (size - 2));
+        engine.snake.extend(Math.max(0, target - engine.snake.getSize()));
+        
+        //The snake starts out facing right. Go across, down one, back across, down one...
+        int across = SnakeObject.RIGHT;
+        while(engine.snake.getLength() < target && !engine.isDead()) {
+            int x = engine.snake.getHeadX() - 1;
+            int y = engine.snake.getHeadY() - 1;
+            boolean atEdge = (across == SnakeObject.RIGHT) ? x == size - 2 : x == 1;
+            if(atEdge) {
+                if(y == size - 2) break; //Out of room
+                engine.step(SnakeObject.DOWN);
+                across = SnakeObject.opposite(across);
+                engine.turn(across);
+            } else engine.step(SnakeEngine.NO_TURN);
+        }
+        return engine;
+    }
+    public static void circle(SnakeObject snake, long tick) {
+        /*
+         * Steers a snake around and around a square 8 boxes on a side (so it never runs into
+         * anything as long as it starts somewhere with room and isn't longer than the square).
+         *
+         * Parameters:
+         * snake - the snake to steer
+         * tick - how many times it has moved so far
+         * Returns: Nothing
+         */
+        if(tick % 7 != 0) return;
+        int[] turns = {SnakeObject.RIGHT, SnakeObject.DOWN, SnakeObject.LEFT, SnakeObject.UP};
+        snake.changeDirection(turns[(int) ((tick / 7) % 4)]);
+    }
+}
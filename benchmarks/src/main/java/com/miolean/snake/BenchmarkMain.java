@@ -0,0 +1,32 @@
+/*
+ * Miles Krusniak
+ * BenchmarkMain.java (Snake)
+ *
+ * BenchmarkMain runs the JMH benchmarks, the same as JMH's own Main, except
+ * that unless told otherwise the results also go into jmh-result.json, so
+ * that one run can be compared with the next. Any of JMH's options work,
+ * e.g. "java -jar benchmarks.jar Pickup -rff before.json" runs just the
+ * pickup benchmarks and puts the results in before.json.
+ */
+
+package com.miolean.snake;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class BenchmarkMain {
+    public static void main(String[] args) throws Exception {
+        List<String> options = new ArrayList<String>();
+        if(!Arrays.asList(args).contains("-rf")) {
+            options.add("-rf");
+            options.add("json");
+        }
+        if(!Arrays.asList(args).contains("-rff")) {
+            options.add("-rff");
+            options.add("jmh-result.json");
+        }
+        options.addAll(Arrays.asList(args));
+        org.openjdk.jmh.Main.main(options.toArray(new String[options.size()]));
+    }
+}
@@ -2,10 +2,13 @@
  * Miles Krusniak
  * Box.java (Snake)
  * 
- * A Box is a JPanel of a certain size with border lines. In Snake I use
- * it to make the grid.
+ * A Box is a JPanel of a certain size with border lines. In Snake I used
+ * it to make the grid, one Box per square; the grid is a BoardCanvas now,
+ * and Boxes are only left for RenderBenchmark to compare against.
  */
 
+package com.miolean.snake;
+
 import java.awt.*;
 import javax.swing.*;
 
@@ -0,0 +1,51 @@
+/*
+ * Miles Krusniak
+ * EngineBenchmark.java (Snake)
+ *
+ * Benchmarks for the parts of a tick: moving the snake and updating the
+ * board, looking at what the head ran into, and a whole step.
+ */
+
+package com.miolean.snake;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EngineBenchmark {
+    @Param({"30", "1000"})
+    int size;
+    
+    SnakeEngine engine;
+    long tick;
+    
+    @Setup
+    public void setUp() {
+        engine = new SnakeEngine(size, new GameRandom(1), PickupRegistry.defaults());
+        tick = 0;
+    }
+    
+    @Benchmark
+    public int updateBoard() {
+        //Moves the snake around in a circle, and puts each move on the board
+        BenchmarkBoards.circle(engine.snake, tick++);
+        engine.snake.move();
+        engine.updateBoard();
+        return engine.snake.getHeadX();
+    }
+    @Benchmark
+    public int checkItemAtHead() {
+        return engine.checkItemAtHead();
+    }
+    @Benchmark
+    public int step() {
+        //A whole tick, going around in a circle (so the snake never dies, or eats much)
+        BenchmarkBoards.circle(engine.snake, tick);
+        return engine.step(tick++ % 7 == 0 ? engine.snake.getDirection() : SnakeEngine.NO_TURN);
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Miles Krusniak
+ * HighScoreBenchmark.java (Snake)
+ *
+ * Benchmark for fitting a new score into the high score list.
+ */
+
+package com.miolean.snake;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HighScoreBenchmark {
+    //How many high scores there are. The window shows 3.
+    @Param({"3", "100"})
+    int places;
+    
+    SnakeScore[] highScores;
+    SnakeScore[] newScores = new SnakeScore[1024];
+    int next = 0;
+    
+    @Setup
+    public void setUp() {
+        GameRandom generator = new GameRandom(1);
+        highScores = new SnakeScore[places];
+        for(int i = 0; i < places; i++) highScores[i] = new SnakeScore(1000 - i * 1000 / places);
+        for(int i = 0; i < newScores.length; i++) newScores[i] = new SnakeScore(generator.nextInt(1100));
+    }
+    
+    @Benchmark
+    public int changeHighScores() {
+        //Starts from the same list every time, so that it doesn't fill up with the best scores
+        SnakeScore[] scores = highScores.clone();
+        return SnakeGame.placeScore(scores, newScores[next++ & (newScores.length - 1)]);
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Miles Krusniak
+ * MetricsBenchmark.java (Snake)
+ *
+ * What keeping metrics (see GameMetrics) costs a tick: the same step as
+ * EngineBenchmark's, with -Dsnake.metrics off and on. GameMetrics.ENABLED
+ * is a constant, so each one gets JVMs (forks) of its own.
+ */
+
+package com.miolean.snake;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+public class MetricsBenchmark {
+    @Param({"30"})
+    int size;
+    
+    SnakeEngine engine;
+    long tick;
+    
+    @Setup
+    public void setUp() {
+        engine = new SnakeEngine(size, new GameRandom(1), PickupRegistry.defaults());
+        tick = 0;
+    }
+    
+    @Benchmark
+    @Fork(value = 5, jvmArgsAppend = "-Dsnake.metrics=false")
+    public int stepMetricsOff() {
+        return step();
+    }
+    @Benchmark
+    @Fork(value = 5, jvmArgsAppend = "-Dsnake.metrics=true")
+    public int stepMetricsOn() {
+        return step();
+    }
+    
+    private int step() {
+        //A whole tick, going around in a circle (so the snake never dies, or eats much)
+        BenchmarkBoards.circle(engine.snake, tick);
+        return engine.step(tick++ % 7 == 0 ? engine.snake.getDirection() : SnakeEngine.NO_TURN);
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Miles Krusniak
+ * PaintBenchmark.java (Snake)
+ *
+ * Benchmarks for drawing the board onto the grid (what SnakeGame's
+ * applyBoard() and drawFrame() do every tick between them), both the usual
+ * kind where only a few boxes changed and a full redraw. It draws onto a
+ * BoardCanvas that isn't in a window, so it runs without a display.
+ */
+
+package com.miolean.snake;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class PaintBenchmark {
+    //Board size. Anything over 60 only shows 60x60 of it, like in the window.
+    @Param({"30", "60", "1000"})
+    int size;
+    
+    SnakeEngine engine;
+    BoardPainter painter;
+    BoardCanvas canvas;
+    RenderState state;
+    long tick;
+    
+    @Setup
+    public void setUp() {
+        engine = new SnakeEngine(size, new GameRandom(1), PickupRegistry.defaults());
+        Viewport view = new Viewport(Math.min(size, 60), Math.min(size, 60), size, size);
+        painter = new BoardPainter(view, engine.registry);
+        canvas = new BoardCanvas(view.getWidth(), view.getHeight(), 10, BoardPainter.pickupColors(engine.registry));
+        state = new RenderState(view.getWidth(), view.getHeight());
+        painter.capture(engine, state);
+        painter.paint(state, canvas, false);
+    }
+    
+    @Benchmark
+    public int applyBoard() {
+        //One tick's worth of drawing: the snake moves, and the boxes that changed are redrawn
+        BenchmarkBoards.circle(engine.snake, tick++);
+        engine.snake.move();
+        engine.updateBoard();
+        painter.capture(engine, state);
+        return painter.paint(state, canvas, false);
+    }
+    @Benchmark
+    public int applyBoardFull() {
+        //Redrawing everything, as happens when the game is reset or the snake dies
+        engine.changes.markAll();
+        painter.capture(engine, state);
+        state.dead = !state.dead; //Every box changes color
+        return painter.paint(state, canvas, false);
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Miles Krusniak
+ * PickupBenchmark.java (Snake)
+ *
+ * Benchmarks for placing and removing pickups, on boards that the snake
+ * fills different amounts of. Placing a pickup changes the board, so it
+ * can't be timed by itself over and over; each place is paired with a
+ * removal so that the board stays the same from one to the next.
+ */
+
+package com.miolean.snake;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PickupBenchmark {
+    @Param({"30", "1000"})
+    int size;
+    
+    //How much of the board the snake takes up
+    @Param({"0.1", "0.5", "0.9"})
+    double fill;
+    
+    SnakeEngine engine;
+    
+    @Setup
+    public void setUp() {
+        engine = BenchmarkBoards.filled(size, fill, 1);
+        engine.chaosMode = true;
+        engine.registry.chaosDecayChance = 1; //So removePickup() always removes one
+    }
+    
+    @Benchmark
+    public boolean addAndRemovePickup() {
+        //Returns: Whether there was room for the pickup
+        boolean added = engine.addPickup(false);
+        engine.removePickup();
+        return added;
+    }
+    @Benchmark
+    public boolean addPickupRejected() {
+        //Chooses a box and the odds in chaos mode, but (like most of the time in chaos mode) doesn't place anything
+        engine.registry.chaosSpawnChance = 0;
+        boolean added = engine.addPickup(true);
+        engine.registry.chaosSpawnChance = 0.05;
+        return added;
+    }
+}
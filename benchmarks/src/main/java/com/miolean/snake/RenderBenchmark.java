@@ -0,0 +1,97 @@
+/*
+ * Miles Krusniak
+ * RenderBenchmark.java (Snake)
+ *
+ * RenderBenchmark compares how long it takes to draw a whole frame of the
+ * grid the old way (one Box per square) and the new way (one BoardCanvas),
+ * at a few board sizes. Both are drawn into an image in memory, so it runs
+ * without a display too.
+ *
+ * Run it as "RenderBenchmark [frames]".
+ */
+
+package com.miolean.snake;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import javax.swing.*;
+
+public class RenderBenchmark {
+    //Board sizes to try, and the pixel size of each box (same as SnakeWindow's)
+    final private static int[] SIZES = {30, 100, 300};
+    final private static int BOX_SIZE = 10;
+    
+    public static void main(String[] args) {
+        int frames = 50;
+        if(args.length > 0) frames = Integer.parseInt(args[0]);
+        
+        System.out.println("Board      Box grid (ms/frame)   BoardCanvas (ms/frame)");
+        for(int size : SIZES) {
+            double boxTime = timeBoxGrid(size, frames);
+            double canvasTime = timeCanvas(size, frames);
+            System.out.printf("%3dx%-3d    %19.3f   %22.3f%n", size, size, boxTime, canvasTime);
+        }
+    }
+    private static double timeBoxGrid(int size, int frames) {
+        /*
+         * Builds a grid of Boxes the way SnakeWindow used to, and times full repaints of it.
+         *
+         * Parameters:
+         * size - number of boxes of grid length and width
+         * frames - how many frames to time
+         * Returns: Average milliseconds per frame
+         */
+        JPanel panel = new JPanel(null);
+        panel.setSize(size * BOX_SIZE, size * BOX_SIZE);
+        Box[][] grid = new Box[size][size];
+        for(int i = 0; i < size; i++) {
+            for(int j = 0; j < size; j++) {
+                grid[i][j] = new Box(BOX_SIZE, BOX_SIZE);
+                grid[i][j].setBackground(Color.BLUE);
+                grid[i][j].setLocation(i * BOX_SIZE, j * BOX_SIZE);
+                grid[i][j].setSize(BOX_SIZE, BOX_SIZE);
+                panel.add(grid[i][j]);
+            }
+        }
+        
+        BufferedImage screen = new BufferedImage(size * BOX_SIZE, size * BOX_SIZE, BufferedImage.TYPE_INT_RGB);
+        Random generator = new Random(42);
+        Color[] colors = {Color.BLUE, Color.GREEN, Color.ORANGE, Color.BLACK};
+        
+        //Warm up first, then time it
+        long startTime = 0;
+        for(int frame = -frames; frame < frames; frame++) {
+            if(frame == 0) startTime = System.nanoTime();
+            for(int k = 0; k < 3; k++) grid[generator.nextInt(size)][generator.nextInt(size)].setBackground(colors[generator.nextInt(4)]);
+            Graphics g = screen.createGraphics();
+            panel.paint(g);
+            g.dispose();
+        }
+        return (System.nanoTime() - startTime) / 1e6 / frames;
+    }
+    private static double timeCanvas(int size, int frames) {
+        /*
+         * Builds a BoardCanvas and times full repaints of it.
+         *
+         * Parameters:
+         * size - number of boxes of grid length and width
+         * frames - how many frames to time
+         * Returns: Average milliseconds per frame
+         */
+        BoardCanvas canvas = new BoardCanvas(size, size, BOX_SIZE, new int[] {0xFFC800});
+        BufferedImage screen = new BufferedImage(size * BOX_SIZE, size * BOX_SIZE, BufferedImage.TYPE_INT_RGB);
+        Random generator = new Random(42);
+        int[] colors = {BoardCanvas.EMPTY, BoardCanvas.BODY, BoardCanvas.PICKUPS, BoardCanvas.WALL};
+        
+        long startTime = 0;
+        for(int frame = -frames; frame < frames; frame++) {
+            if(frame == 0) startTime = System.nanoTime();
+            for(int k = 0; k < 3; k++) canvas.setBoxColor(generator.nextInt(size), generator.nextInt(size), colors[generator.nextInt(4)]);
+            Graphics g = screen.createGraphics();
+            canvas.paint(g);
+            g.dispose();
+        }
+        return (System.nanoTime() - startTime) / 1e6 / frames;
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Miles Krusniak
+ * SnakeObjectBenchmark.java (Snake)
+ *
+ * Benchmarks for the snake on its own: moving it, and growing it.
+ */
+
+package com.miolean.snake;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SnakeObjectBenchmark {
+    //How long the snake is. Moving should take just as long either way.
+    @Param({"3", "1000"})
+    int length;
+    
+    SnakeObject snake;
+    long tick;
+    
+    @Setup
+    public void setUp() {
+        snake = new SnakeObject();
+        snake.extend(length - snake.getSize());
+        for(tick = 0; snake.getLength() < length; tick++) {
+            BenchmarkBoards.circle(snake, tick);
+            snake.move();
+        }
+    }
+    
+    @Benchmark
+    public int move() {
+        //Returns: Something from the snake, so the move isn't optimized away
+        BenchmarkBoards.circle(snake, tick++);
+        snake.move();
+        return snake.getVacated();
+    }
+    @Benchmark
+    public int extendAndMove() {
+        //Returns: Something from the snake, so the move isn't optimized away. Now and then the
+        //snake gets so long that we start over with a new one, so memory doesn't run out.
+        if(snake.getLength() >= 1 << 16) setUp();
+        snake.extend(1);
+        BenchmarkBoards.circle(snake, tick++);
+        snake.move();
+        return snake.getLength();
+    }
+}
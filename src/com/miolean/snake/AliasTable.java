@@ -0,0 +1,89 @@
+/*
+ * Miles Krusniak
+ * AliasTable.java (Snake)
+ *
+ * An AliasTable picks one of several choices at random, each with its own
+ * weight, in the same (short) time no matter how many choices there are.
+ * It's Walker's alias method (as set up by Vose): every choice gets a slot,
+ * and each slot holds its own choice part of the time and one "alias"
+ * choice the rest of the time. Picking is then one random slot and one
+ * coin flip.
+ */
+
+package com.miolean.snake;
+
+public class AliasTable {
+    /*
+     * A weighted random choice among ints, set up ahead of time.
+     *
+     * Extends: Nothing
+     * Implements: Nothing
+     */
+    
+    private int[] choices; //What each slot stands for
+    private double[] chance; //How often a slot picks its own choice instead of its alias
+    private int[] alias; //The slot whose choice is picked the rest of the time
+    
+    public AliasTable(int[] choices, double[] weights) {
+        /*
+         * Constructor for AliasTables. Choices with no weight are never picked.
+         *
+         * Parameters:
+         * choices - the things to choose from
+         * weights - how likely each of them is, relative to the others (none negative)
+         * Returns: Constructed AliasTable
+         */
+        int n = 0;
+        double total = 0;
+        for(int i = 0; i < choices.length; i++) {
+            if(weights[i] > 0) {
+                n++;
+                total += weights[i];
+            }
+        }
+        this.choices = new int[n];
+        chance = new double[n];
+        alias = new int[n];
+        if(n == 0) return;
+        
+        //Scale the weights so that they average out to 1. Slots below 1 ("small") get topped up
+        //by slots above 1 ("large"), which become the smaller slots' aliases.
+        double[] scaled = new double[n];
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int smallCount = 0, largeCount = 0;
+        for(int i = 0, j = 0; i < choices.length; i++) {
+            if(weights[i] <= 0) continue;
+            this.choices[j] = choices[i];
+            scaled[j] = weights[i] * n / total;
+            if(scaled[j] < 1) small[smallCount++] = j;
+            else large[largeCount++] = j;
+            j++;
+        }
+        while(smallCount > 0 && largeCount > 0) {
+            int less = small[--smallCount];
+            int more = large[--largeCount];
+            chance[less] = scaled[less];
+            alias[less] = more;
+            scaled[more] = (scaled[more] + scaled[less]) - 1;
+            if(scaled[more] < 1) small[smallCount++] = more;
+            else large[largeCount++] = more;
+        }
+        //Whatever is left over is (give or take rounding) exactly full
+        while(largeCount > 0) chance[large[--largeCount]] = 1;
+        while(smallCount > 0) chance[small[--smallCount]] = 1;
+    }
+    
+    public int pick(GameRandom generator) {
+        /*
+         * Chooses one of the choices at random, according to the weights.
+         *
+         * Parameters: generator - the random number generator to use
+         * Returns: The choice, or -1 if there was nothing to choose from
+         */
+        if(choices.length == 0) return -1;
+        int slot = generator.nextInt(choices.length);
+        if(generator.nextDouble() < chance[slot]) return choices[slot];
+        return choices[alias[slot]];
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * Miles Krusniak
+ * BalanceSimulator.java (Snake)
+ *
+ * BalanceSimulator plays lots and lots of games of Snake with a bot (see
+ * PathDriver, or GreedyDriver for a sloppier player) at the wheel, to find
+ * out what the pickup settings actually do to the game. It plays every combination of the options - chaos mode on
+ * and off, and each item in the Item menu on and off - and reports how many
+ * points the bot got, how big the snake got, and how long it lasted, for
+ * each one.
+ *
+ * The games are split into batches and spread across every core with
+ * fork/join. Each batch gets its own random numbers, split off before any
+ * of them start, so the results only depend on the seed and not on which
+ * thread played what.
+ */
+
+package com.miolean.snake;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+public class BalanceSimulator {
+    /*
+     * A batch runner for bot-played games, one set of games per option combination.
+     *
+     * Extends: Nothing
+     * Implements: Nothing
+     */
+    
+    //Games are handed out to the threads this many at a time
+    final private static int GAMES_PER_BATCH = 256;
+    
+    //A game the bot still hasn't lost after this many ticks is stopped (and counted as such)
+    final static int MAX_TICKS = 20000;
+    
+    //Which bot plays: nobody (the snake goes wherever it's facing), GreedyDriver or PathDriver
+    final static int NO_BOT = 0;
+    final static int GREEDY_BOT = 1;
+    final static int PATH_BOT = 2;
+    private int bot = PATH_BOT;
+    
+    //The game being balanced: its board size, its pickups, and the pickups in the Item menu
+    private int width, height;
+    private PickupRegistry registry;
+    private List<PickupType> toggles = new ArrayList<PickupType>();
+    
+    //The option combinations are numbered so that bit 0 is chaos mode, and bit i + 1
+    //is set when toggles.get(i) is turned off. Combination 0 is the game as it starts.
+    private int combos;
+    private int gamesPerCombo;
+    
+    //Results of every game, indexed by combination and then game
+    private int[][] points, sizes, ticks, gameTimes;
+    
+    public BalanceSimulator(int width, int height, PickupRegistry registry) {
+        /*
+         * Constructor for BalanceSimulators.
+         *
+         * Parameters:
+         * width - the length of the board, walls included
+         * height - the width of the board, walls included
+         * registry - the pickups to balance. Whatever is turned on in it is the starting point.
+         * Returns: Constructed BalanceSimulator
+         */
+        this.width = width;
+        this.height = height;
+        this.registry = registry;
+        for(PickupType type : registry.getTypes()) {
+            if(type.toggleable) toggles.add(type);
+        }
+        combos = 1 << (toggles.size() + 1);
+    }
+    
+    public void setBot(int bot) {
+        /*
+         * Chooses which bot plays the games, from the next run() on.
+         *
+         * Parameters: bot - NO_BOT, GREEDY_BOT or PATH_BOT
+         * Returns: Nothing
+         */
+        this.bot = bot;
+    }
+    public void run(long games, long seed, ForkJoinPool pool) {
+        /*
+         * Plays the games, split evenly among the option combinations.
+         *
+         * Parameters:
+         * games - how many games to play in all
+         * seed - seed for the random numbers
+         * pool - the threads to play them on
+         * Returns: Nothing
+         */
+        gamesPerCombo = (int) Math.max(1, (games + combos - 1) / combos);
+        points = new int[combos][gamesPerCombo];
+        sizes = new int[combos][gamesPerCombo];
+        ticks = new int[combos][gamesPerCombo];
+        gameTimes = new int[combos][gamesPerCombo];
+        
+        //Split off every batch's random numbers now, in order, so they don't depend on the threads
+        int batchesPerCombo = (gamesPerCombo + GAMES_PER_BATCH - 1) / GAMES_PER_BATCH;
+        GameRandom root = new GameRandom(seed);
+        GameRandom[] generators = new GameRandom[combos * batchesPerCombo];
+        for(int i = 0; i < generators.length; i++) generators[i] = root.split();
+        
+        pool.invoke(new BatchTask(generators, 0, generators.length));
+    }
+    private class BatchTask extends RecursiveAction {
+        /*
+         * Plays a range of batches, split in half until there's just one.
+         *
+         * Extends: RecursiveAction
+         * Implements: Nothing
+         */
+        private GameRandom[] generators;
+        private int from, to;
+        
+        BatchTask(GameRandom[] generators, int from, int to) {
+            //Parameters: generators - every batch's random numbers; from, to - the batches to play
+            this.generators = generators;
+            this.from = from;
+            this.to = to;
+        }
+        protected void compute() {
+            //One batch? Then play it. Otherwise split the range in two and play both halves at once.
+            if(to - from == 1) {
+                int batchesPerCombo = generators.length / combos;
+                int combo = from / batchesPerCombo;
+                int first = (from % batchesPerCombo) * GAMES_PER_BATCH;
+                playBatch(combo, first, Math.min(GAMES_PER_BATCH, gamesPerCombo - first), generators[from]);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new BatchTask(generators, from, middle), new BatchTask(generators, middle, to));
+        }
+    }
+    private void playBatch(int combo, int first, int games, GameRandom generator) {
+        /*
+         * Plays one batch of games with one combination of options, and records how they went.
+         *
+         * Parameters:
+         * combo - the option combination
+         * first - the number of the batch's first game, among that combination's games
+         * games - how many games to play
+         * generator - random numbers for this batch alone
+         * Returns: Nothing
+         */
+        
+        //Registries aren't safe to share between threads, so the batch gets its own
+        PickupRegistry batchRegistry = registry.copy();
+        for(int i = 0; i < toggles.size(); i++) {
+            if((combo & (2 << i)) != 0) batchRegistry.setEnabled(toggles.get(i).item, false);
+        }
+        GreedyDriver greedy = (bot == GREEDY_BOT) ? new GreedyDriver(generator.split()) : null;
+        PathDriver pilot = (bot == PATH_BOT) ? new PathDriver(generator.split()) : null;
+        SnakeEngine engine = new SnakeEngine(width, height, generator, batchRegistry);
+        engine.chaosMode = (combo & 1) != 0;
+        
+        for(int game = first; game < first + games; game++) {
+            engine.reset();
+            int tick = 0;
+            int time = 0; //Milliseconds, as the game would have played them in the window
+            while(!engine.isDead() && tick < MAX_TICKS) {
+                time += engine.speed;
+                int turn = SnakeEngine.NO_TURN;
+                if(pilot != null) turn = pilot.nextDirection(engine);
+                else if(greedy != null) turn = greedy.nextDirection(engine);
+                engine.step(turn);
+                tick++;
+            }
+            points[combo][game] = engine.points;
+            sizes[combo][game] = engine.snake.getSize();
+            ticks[combo][game] = tick;
+            gameTimes[combo][game] = time;
+        }
+        if(GameMetrics.ENABLED) engine.countTicks(); //The last game's ticks (it's never reset)
+    }
+    
+    /*
+     *
+     * Reporting.
+     *
+     */
+    public void report(PrintStream out) {
+        /*
+         * Prints a table of the results: for each combination, the average and some percentiles
+         * of the points, snake size, ticks lasted, and time lasted, and how often the bot
+         * lasted until MAX_TICKS.
+         *
+         * Parameters: out - where to print the table
+         * Returns: Nothing
+         */
+        out.println(gamesPerCombo + " games per combination, " + combos + " combinations");
+        out.printf("%-6s %-40s %25s %25s %25s %9s %7s%n", "Chaos", "Turned off", "Points (mean p10/50/90)",
+            "Size (mean p10/50/90)", "Ticks (mean p10/50/90)", "Secs mean", "Capped");
+        for(int combo = 0; combo < combos; combo++) {
+            StringBuilder off = new StringBuilder();
+            for(int i = 0; i < toggles.size(); i++) {
+                if((combo & (2 << i)) != 0) off.append(off.length() > 0 ? "," : "").append(toggles.get(i).key);
+            }
+            int capped = 0;
+            for(int t : ticks[combo]) if(t >= MAX_TICKS) capped++;
+            out.printf("%-6s %-40s %25s %25s %25s %9.1f %6.2f%%%n", (combo & 1) != 0 ? "on" : "off",
+                off.length() > 0 ? off : "-", summary(points[combo]), summary(sizes[combo]), summary(ticks[combo]),
+                mean(gameTimes[combo]) / 1000, 100.0 * capped / gamesPerCombo);
+        }
+    }
+    private static String summary(int[] values) {
+        //Returns: The mean, 10th, 50th and 90th percentiles of values, as text
+        int[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return String.format("%.1f %d/%d/%d", mean(values), percentile(sorted, 10), percentile(sorted, 50),
+            percentile(sorted, 90));
+    }
+    private static int percentile(int[] sorted, int percent) {
+        //Returns: The value that percent percent of sorted are at or below
+        return sorted[Math.min(sorted.length - 1, sorted.length * percent / 100)];
+    }
+    private static double mean(int[] values) {
+        //Returns: The average of values
+        long total = 0;
+        for(int value : values) total += value;
+        return (double) total / values.length;
+    }
+    
+    /*
+     *
+     * Accessor methods.
+     *
+     */
+    public int getCombinations() {
+        //Returns: The number of option combinations
+        return combos;
+    }
+    public int getGamesPerCombination() {
+        //Returns: The number of games played with each combination in the last run()
+        return gamesPerCombo;
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Miles Krusniak
+ * BoardCanvas.java (Snake)
+ *
+ * A BoardCanvas is the whole grid drawn as one component. The boxes are
+ * painted straight into an image in memory, and painting the component
+ * just copies (the visible part of) that image onto the screen. It looks
+ * the same as a grid of Boxes, but Swing only has to deal with one
+ * component no matter how big the board is.
+ */
+
+package com.miolean.snake;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import javax.swing.*;
+
+public class BoardCanvas extends JComponent {
+    /*
+     * A grid of colored boxes with border lines, drawn into a single image.
+     *
+     * Extends: JComponent
+     * Implements: Nothing
+     */
+    
+    //The palette. Boxes are colored by index into this table rather than by Color objects,
+    //so that coloring a box never has to make anything. The indices are constants so that
+    //SnakeGame can build its item-to-color tables out of them. Pickup colors come after
+    //these, starting at PICKUPS, in whatever order the canvas was given them.
+    final static int EMPTY = 0;
+    final static int WALL = 1;
+    final static int HEAD = 2;
+    final static int DEAD_HEAD = 3;
+    final static int WORM_HEAD = 4;
+    final static int BODY = 5;
+    final static int DEAD_BODY = 6;
+    final static int WORM_BODY = 7;
+    final static int PICKUPS = 8;
+    final private static int[] BASE_PALETTE = {
+        Color.BLUE.getRGB(),                //EMPTY
+        Color.BLACK.getRGB(),               //WALL
+        new Color(0, 180, 0).getRGB(),      //HEAD
+        new Color(200, 0, 0).getRGB(),      //DEAD_HEAD
+        new Color(50, 50, 0).getRGB(),      //WORM_HEAD
+        Color.GREEN.getRGB(),               //BODY
+        Color.RED.getRGB(),                 //DEAD_BODY
+        new Color(100, 100, 50).getRGB()    //WORM_BODY
+    };
+    private int[] palette;
+    private Color[] paletteColors; //The same colors, for drawing the lead
+    //Color of the border lines, same as a Box's
+    final private static int LINE = Color.BLACK.getRGB();
+    
+    //The image the boxes are drawn into, and its pixels (so we can set them directly)
+    private BufferedImage image;
+    private int[] pixels;
+    private int sizeX, sizeY; //Number of boxes, length and width
+    private int boxSize; //Pixel size of each box
+    
+    //The lead: part of a box drawn over the image in another color, growing from the side of
+    //the box next to it (see setLead()). leadFrom is that box; leadPixels is how far it's grown.
+    private int leadX = -1, leadY = -1, leadFromX, leadFromY;
+    private int leadPixels = 0;
+    private int leadColor;
+    
+    public BoardCanvas(int sizeX, int sizeY, int boxSize, int[] pickupColors) {
+        /*
+         * Constructor for BoardCanvases. All of the boxes start out EMPTY.
+         *
+         * Parameters:
+         * sizeX - number of boxes of grid length
+         * sizeY - number of boxes of grid width
+         * boxSize - pixel size of each (square) box
+         * pickupColors - colors (as 0xRRGGBB) for palette indices PICKUPS and up
+         * Returns: A constructed BoardCanvas
+         */
+        palette = java.util.Arrays.copyOf(BASE_PALETTE, PICKUPS + pickupColors.length);
+        for(int i = 0; i < pickupColors.length; i++) palette[PICKUPS + i] = 0xFF000000 | pickupColors[i];
+        paletteColors = new Color[palette.length];
+        for(int i = 0; i < palette.length; i++) paletteColors[i] = new Color(palette[i]);
+        this.sizeX = sizeX;
+        this.sizeY = sizeY;
+        this.boxSize = boxSize;
+        image = new BufferedImage(sizeX * boxSize, sizeY * boxSize, BufferedImage.TYPE_INT_RGB);
+        pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        this.setSize(sizeX * boxSize, sizeY * boxSize);
+        this.setOpaque(true);
+        
+        //Draw the border lines once. Like a Box, each box only shows its top and left lines.
+        java.util.Arrays.fill(pixels, palette[EMPTY]);
+        int width = image.getWidth();
+        for(int y = 0; y < image.getHeight(); y++) {
+            for(int x = 0; x < width; x++) {
+                if(x % boxSize == 0 || y % boxSize == 0) pixels[y * width + x] = LINE;
+            }
+        }
+    }
+    
+    public void setBoxColor(int x, int y, int color) {
+        /*
+         * Changes the color of a single box at (x, y), and asks Swing to repaint just that box.
+         * Can be called from any thread.
+         *
+         * Parameters:
+         * x - x value of grid location to change
+         * y - y value of grid location to change
+         * color - the palette index of the color to change it to
+         * Returns: Nothing
+         */
+        int rgb = palette[color];
+        int width = image.getWidth();
+        int start = (y * boxSize + 1) * width + x * boxSize + 1; //Inside the border lines
+        if(pixels[start] == rgb) return; //Already that color
+        
+        for(int row = 0; row < boxSize - 1; row++) {
+            int offset = start + row * width;
+            for(int col = 0; col < boxSize - 1; col++) pixels[offset + col] = rgb;
+        }
+        this.repaint(x * boxSize, y * boxSize, boxSize, boxSize);
+    }
+    public void setLead(int x, int y, int fromX, int fromY, double fraction, int color) {
+        /*
+         * Fills part of the box at (x, y) with a color, starting from the side next to (fromX, fromY)
+         * - e.g. the snake's head on its way into the box. The image underneath isn't changed, so the
+         * lead goes away as soon as it's moved or set to nothing. Only call this on the event dispatch thread.
+         *
+         * Parameters:
+         * x - x value of grid location to fill part of
+         * y - y value of grid location to fill part of
+         * fromX - x value of the grid location it's coming from (one box away from x)
+         * fromY - y value of the grid location it's coming from (one box away from y)
+         * fraction - how much of the box to fill, from 0 (none, which takes the lead away) to 1
+         * color - the palette index of the color to fill it with
+         * Returns: Nothing
+         */
+        int pixels = Math.max(0, (int) (fraction * (boxSize - 1)));
+        if(x < 0 || y < 0 || x >= sizeX || y >= sizeY) pixels = 0; //Out of view
+        
+        //Nothing to change
+        if(pixels == 0 && leadPixels == 0) return;
+        if(pixels == leadPixels && x == leadX && y == leadY && fromX == leadFromX && fromY == leadFromY
+            && color == leadColor) return;
+        
+        if(leadPixels > 0) this.repaint(leadX * boxSize, leadY * boxSize, boxSize, boxSize); //Where it was
+        leadX = x;
+        leadY = y;
+        leadFromX = fromX;
+        leadFromY = fromY;
+        leadPixels = pixels;
+        leadColor = color;
+        if(pixels > 0) this.repaint(x * boxSize, y * boxSize, boxSize, boxSize);
+    }
+    public void paintComponent(Graphics g) {
+        /*
+         * Copies the image onto the screen, and draws the lead over it. The clip is usually
+         * just the boxes that changed, and drawImage() only copies what is inside it.
+         *
+         * Parameters: g - the Graphics object we are drawing onto
+         * Returns: Nothing
+         */
+        g.drawImage(image, 0, 0, null);
+        if(leadPixels > 0) {
+            //Inside the border lines, against the side the lead comes from
+            int left = leadX * boxSize + 1, top = leadY * boxSize + 1;
+            int inside = boxSize - 1;
+            g.setColor(paletteColors[leadColor]);
+            if(leadFromX < leadX) g.fillRect(left, top, leadPixels, inside);
+            else if(leadFromX > leadX) g.fillRect(left + inside - leadPixels, top, leadPixels, inside);
+            else if(leadFromY < leadY) g.fillRect(left, top, inside, leadPixels);
+            else g.fillRect(left, top + inside - leadPixels, inside, leadPixels);
+        }
+    }
+    public Dimension getPreferredSize() {
+        //Returns: The size of the whole grid, in pixels
+        return new Dimension(sizeX * boxSize, sizeY * boxSize);
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Miles Krusniak
+ * BoardChanges.java (Snake)
+ *
+ * BoardChanges is a list of the boxes on the board that have changed since
+ * the last time somebody looked. In a normal tick only a few boxes change
+ * (the new head, the box the tail left, maybe a pickup), so whoever draws
+ * the board can redraw just those instead of the whole thing.
+ */
+
+package com.miolean.snake;
+
+public class BoardChanges {
+    /*
+     * A bounded list of changed board coordinates.
+     *
+     * Extends: Nothing
+     * Implements: Nothing
+     */
+    
+    //Each change is kept as one int: x in the high 16 bits, y in the low 16.
+    //A box may show up more than once; redrawing it twice is harmless.
+    private int[] changed;
+    private int count = 0;
+    
+    //If more boxes change than we have room for, we stop counting and just remember
+    //that everything should be redrawn. This also keeps a board that nobody ever
+    //draws (a headless one) from growing the list forever.
+    private boolean overflowed = true;
+    
+    public BoardChanges(int capacity) {
+        /*
+         * Constructor for BoardChanges. It starts out overflowed, since nothing has
+         * been drawn yet and the whole board needs to be.
+         *
+         * Parameters: capacity - how many changes to remember before giving up
+         * Returns: Constructed BoardChanges
+         */
+        changed = new int[capacity];
+    }
+    
+    public void mark(int x, int y) {
+        /*
+         * Records that the box at (x, y) has changed.
+         *
+         * Parameters:
+         * x - x value of the board location
+         * y - y value of the board location
+         * Returns: Nothing
+         */
+        if(overflowed) return;
+        if(count == changed.length) {
+            overflowed = true;
+            return;
+        }
+        changed[count++] = (x << 16) | y;
+    }
+    public void markAll() {
+        //Records that every box should be redrawn (e.g. when the board is reset)
+        overflowed = true;
+    }
+    public void clear() {
+        //Forgets all of the changes - call this after they have been drawn
+        count = 0;
+        overflowed = false;
+    }
+    
+    /*
+     *
+     * Accessor methods.
+     *
+     */
+    public boolean isOverflowed() {
+        //Returns: Whether too much changed to list, so the whole board should be redrawn
+        return overflowed;
+    }
+    public int size() {
+        //Returns: The number of changes listed
+        return count;
+    }
+    public int getX(int i) {
+        //Returns: The x value of the i-th change
+        return changed[i] >>> 16;
+    }
+    public int getY(int i) {
+        //Returns: The y value of the i-th change
+        return changed[i] & 0xFFFF;
+    }
+}
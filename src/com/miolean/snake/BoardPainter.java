@@ -0,0 +1,186 @@
+/*
+ * Miles Krusniak
+ * BoardPainter.java (Snake)
+ *
+ * BoardPainter draws a SnakeEngine's board onto a BoardCanvas: it knows
+ * which color each item is, which part of the board is in view, and what
+ * was drawn last time, so it can redraw just the boxes that changed. It
+ * used to be part of SnakeGame, but it doesn't need the window, so now it
+ * can be used (and timed) without one.
+ *
+ * Drawing is done in two halves, on two threads. The game thread capture()s
+ * the part of the board in view into a RenderState after each tick, and the
+ * window paint()s the grid from whichever RenderState is newest when it
+ * gets around to it. The halves share nothing but the states passed between
+ * them (see RenderBuffer), so neither ever waits for the other.
+ */
+
+package com.miolean.snake;
+
+public class BoardPainter {
+    /*
+     * Copies the board onto the grid, one changed box at a time.
+     *
+     * Extends: Nothing
+     * Implements: Nothing
+     */
+    
+    //The game thread's half: the part of the board that shows on the canvas, and the items in it
+    //as of the last capture() (kept up to date one changed box at a time, then copied out whole)
+    private Viewport view;
+    private int[] viewItems;
+    
+    //Item-to-color tables for the grid, one for each way the snake can look. Each maps an item
+    //(offset by SNAKEHEAD_ITEM, the lowest item) to a BoardCanvas palette index.
+    private int[] snakeColors, wormColors, deadColors;
+    
+    //The window's half: what the grid was last drawn as, so paint() only redraws what's different
+    private int[] drawnItems;
+    private int[] drawnColors = null;
+    private int drawnX = -1, drawnY = -1;
+    //How many boxes paint() recolored the last time it was called, and in total
+    int lastRepaintCount = 0;
+    long totalRepaintCount = 0;
+    
+    public BoardPainter(Viewport view, PickupRegistry registry) {
+        /*
+         * Constructor for BoardPainters.
+         *
+         * Parameters:
+         * view - the part of the board to draw
+         * registry - the kinds of pickup there may be on the board
+         * Returns: Constructed BoardPainter
+         */
+        this.view = view;
+        viewItems = new int[view.getWidth() * view.getHeight()];
+        drawnItems = new int[view.getWidth() * view.getHeight()];
+        snakeColors = itemColors(registry, BoardCanvas.HEAD, BoardCanvas.BODY);
+        wormColors = itemColors(registry, BoardCanvas.WORM_HEAD, BoardCanvas.WORM_BODY);
+        deadColors = itemColors(registry, BoardCanvas.DEAD_HEAD, BoardCanvas.DEAD_BODY);
+    }
+    
+    public int capture(SnakeEngine engine, RenderState state) {
+        /*
+         * Copies the part of the board in view into a state, for paint() to draw later. Only the
+         * boxes the engine says have changed are looked up again, unless the view moved to follow
+         * the snake or too much changed at once, in which case we look up all of them. Only the
+         * game thread (or whoever is stepping the engine) may call this.
+         *
+         * Parameters:
+         * engine - the game to draw
+         * state - where to copy it, as big as the view
+         * Returns: The number of boxes looked up again
+         */
+        BoardChanges changes = engine.changes;
+        int looked = 0;
+        int width = view.getWidth();
+        
+        boolean viewMoved = view.follow(engine.snake.getHeadX() - 1, engine.snake.getHeadY() - 1);
+        int viewX = view.getX();
+        int viewY = view.getY();
+        
+        if(changes.isOverflowed() || viewMoved) {
+            //Double loop to look up every box in view
+            for(int j = 0; j < view.getHeight(); j++) {
+                for(int i = 0; i < width; i++) viewItems[j * width + i] = engine.getItem(viewX + i, viewY + j);
+            }
+            looked = viewItems.length;
+        } else {
+            //Just the boxes that changed (and that we can see)
+            for(int i = 0; i < changes.size(); i++) {
+                int x = changes.getX(i);
+                int y = changes.getY(i);
+                if(!view.contains(x, y)) continue;
+                viewItems[(y - viewY) * width + x - viewX] = engine.getItem(x, y);
+                looked++;
+            }
+        }
+        changes.clear();
+        System.arraycopy(viewItems, 0, state.items, 0, viewItems.length);
+        state.viewX = viewX;
+        state.viewY = viewY;
+        return looked;
+    }
+    public int paint(RenderState state, BoardCanvas canvas, boolean worm) {
+        /*
+         * Sets the colors of the boxes on the canvas to match a state. Only the boxes that aren't
+         * what they were last drawn as are redrawn, unless the whole grid has to change color
+         * (the snake died or turned into a worm) or the view moved, in which case we redraw all
+         * of it. Only the window's thread may call this.
+         *
+         * Parameters:
+         * state - what to draw
+         * canvas - where to draw it
+         * worm - whether the snake should show as a worm
+         * Returns: The number of boxes redrawn
+         */
+        int repainted = 0;
+        int offset = -SnakeEngine.SNAKEHEAD_ITEM;
+        int width = state.viewWidth;
+        int[] items = state.items;
+        int[] colors;
+        if(state.dead) colors = deadColors; //Red (because it is dead)
+        else if(worm) colors = wormColors;
+        else colors = snakeColors;
+        boolean all = colors != drawnColors || state.viewX != drawnX || state.viewY != drawnY;
+        
+        for(int n = 0; n < items.length; n++) {
+            if(!all && items[n] == drawnItems[n]) continue;
+            canvas.setBoxColor(n % width, n / width, colors[items[n] + offset]);
+            drawnItems[n] = items[n];
+            repainted++;
+        }
+        drawnColors = colors;
+        drawnX = state.viewX;
+        drawnY = state.viewY;
+        lastRepaintCount = repainted;
+        totalRepaintCount += repainted;
+        return repainted;
+    }
+    
+    /*
+     *
+     * Color tables.
+     *
+     */
+    private static int[] itemColors(PickupRegistry registry, int head, int body) {
+        /*
+         * Builds a table of which palette color each item is drawn in. Only the snake's
+         * colors differ from table to table. Each kind of pickup has its own palette
+         * color, in the order of pickupColors().
+         *
+         * Parameters:
+         * registry - the kinds of pickup
+         * head - palette index for the snake's head
+         * body - palette index for the rest of the snake
+         * Returns: The table, indexed by item minus SNAKEHEAD_ITEM
+         */
+        int[] colors = new int[registry.getMaxItem() - SnakeEngine.SNAKEHEAD_ITEM + 1];
+        int offset = -SnakeEngine.SNAKEHEAD_ITEM;
+        //General items
+        colors[SnakeEngine.NO_ITEM + offset] = BoardCanvas.EMPTY;
+        colors[SnakeEngine.WALL_ITEM + offset] = BoardCanvas.WALL;
+        //Snake (or worm) items
+        colors[SnakeEngine.SNAKEHEAD_ITEM + offset] = head;
+        colors[SnakeEngine.SNAKE_ITEM + offset] = body;
+        //Pickup items
+        for(int item = SnakeEngine.FOOD_ITEM; item <= registry.getMaxItem(); item++) {
+            colors[item + offset] = BoardCanvas.PICKUPS + item - SnakeEngine.FOOD_ITEM;
+        }
+        return colors;
+    }
+    static int[] pickupColors(PickupRegistry registry) {
+        /*
+         * Lists the colors of the pickups for the grid's palette.
+         *
+         * Parameters: registry - the kinds of pickup
+         * Returns: The color of each item from FOOD_ITEM up, as 0xRRGGBB
+         */
+        int[] colors = new int[registry.getMaxItem() - SnakeEngine.FOOD_ITEM + 1];
+        for(int item = SnakeEngine.FOOD_ITEM; item <= registry.getMaxItem(); item++) {
+            PickupType type = registry.get(item);
+            if(type != null) colors[item - SnakeEngine.FOOD_ITEM] = type.color;
+        }
+        return colors;
+    }
+}
@@ -0,0 +1,286 @@
+/*
+ * Miles Krusniak
+ * BoardStore.java (Snake)
+ *
+ * BoardStore holds the items on the board, one byte per box, for boards
+ * anywhere from the usual 30x30 up to tens of thousands of boxes on a side.
+ * The board is split into square chunks, and a chunk only gets memory once
+ * something other than blank board (walls around the edge, nothing inside)
+ * is put in it. It gives the memory back once it's blank again, so a snake
+ * wandering across a huge board only ever uses a few chunks' worth.
+ *
+ * It also counts the empty boxes in each chunk, with a Fenwick tree (a
+ * binary indexed tree) over the counts, so that a random empty box can be
+ * found quickly without listing every empty box on the board.
+ */
+
+package com.miolean.snake;
+
+public class BoardStore {
+    /*
+     * A lazily allocated, chunked board of items.
+     *
+     * Extends: Nothing
+     * Implements: Nothing
+     */
+    
+    //Chunks are CHUNK_SIZE boxes on a side
+    final static int CHUNK_BITS = 6;
+    final static int CHUNK_SIZE = 1 << CHUNK_BITS;
+    final private static int CHUNK_MASK = CHUNK_SIZE - 1;
+    
+    //Size of the board, walls included, and how many chunks it takes down each column
+    private int width, height;
+    private int chunksHigh;
+    
+    //The chunks, numbered (x / CHUNK_SIZE) * chunksHigh + (y / CHUNK_SIZE). A chunk that is
+    //still blank is null. Inside a chunk, a box is at (x % CHUNK_SIZE) * CHUNK_SIZE + (y % CHUNK_SIZE).
+    private byte[][] chunks;
+    private int[] changed; //How many boxes in each chunk aren't blank
+    private int allocated = 0; //How many chunks aren't null
+    
+    //How many empty boxes there are in each chunk, a Fenwick tree over those counts
+    //(freeTree[i] covers the chunks just below i, as many as the lowest bit of i says),
+    //and how many there are in all
+    private int[] free;
+    private int[] freeTree;
+    private int freeCount;
+    
+    public BoardStore(int width, int height) {
+        /*
+         * Constructor for BoardStores. The board starts out blank.
+         *
+         * Parameters:
+         * width - number of boxes of board length, walls included
+         * height - number of boxes of board width, walls included
+         * Returns: Constructed BoardStore
+         */
+        this.width = width;
+        this.height = height;
+        chunksHigh = (height + CHUNK_MASK) >> CHUNK_BITS;
+        int chunkCount = ((width + CHUNK_MASK) >> CHUNK_BITS) * chunksHigh;
+        chunks = new byte[chunkCount][];
+        changed = new int[chunkCount];
+        free = new int[chunkCount];
+        freeTree = new int[chunkCount + 1];
+        clear();
+    }
+    
+    public void clear() {
+        /*
+         * Makes the whole board blank again: walls around the edge and nothing inside.
+         * This only has to touch each chunk, not each box.
+         *
+         * Parameters: None
+         * Returns: Nothing
+         */
+        java.util.Arrays.fill(chunks, null);
+        java.util.Arrays.fill(changed, 0);
+        allocated = 0;
+        
+        //Every box inside the walls is empty
+        freeCount = 0;
+        for(int c = 0; c < free.length; c++) {
+            int x0 = (c / chunksHigh) << CHUNK_BITS;
+            int y0 = (c % chunksHigh) << CHUNK_BITS;
+            int across = Math.min(x0 + CHUNK_SIZE, width - 1) - Math.max(x0, 1);
+            int down = Math.min(y0 + CHUNK_SIZE, height - 1) - Math.max(y0, 1);
+            free[c] = (across > 0 && down > 0) ? across * down : 0;
+            freeCount += free[c];
+        }
+        
+        //Build the tree from the bottom up: each node passes its total on to its parent
+        java.util.Arrays.fill(freeTree, 0);
+        for(int i = 1; i < freeTree.length; i++) {
+            freeTree[i] += free[i - 1];
+            int parent = i + (i & -i);
+            if(parent < freeTree.length) freeTree[parent] += freeTree[i];
+        }
+    }
+    public int get(int x, int y) {
+        /*
+         * Looks up the item at (x, y).
+         *
+         * Parameters:
+         * x - x value of the board location
+         * y - y value of the board location
+         * Returns: The item there
+         */
+        byte[] chunk = chunks[(x >> CHUNK_BITS) * chunksHigh + (y >> CHUNK_BITS)];
+        if(chunk == null) return blankItem(x, y);
+        return chunk[((x & CHUNK_MASK) << CHUNK_BITS) | (y & CHUNK_MASK)];
+    }
+    public void set(int x, int y, int item) {
+        /*
+         * Puts an item at (x, y). Items have to fit in a byte (see PickupRegistry.MAX_ITEM).
+         *
+         * Parameters:
+         * x - x value of the board location
+         * y - y value of the board location
+         * item - the item to put there
+         * Returns: Nothing
+         */
+        int c = (x >> CHUNK_BITS) * chunksHigh + (y >> CHUNK_BITS);
+        int blank = blankItem(x, y);
+        byte[] chunk = chunks[c];
+        if(chunk == null) {
+            if(item == blank) return; //Nothing to do, and no reason to make the chunk
+            chunk = allocate(c);
+        }
+        int i = ((x & CHUNK_MASK) << CHUNK_BITS) | (y & CHUNK_MASK);
+        int old = chunk[i];
+        if(old == item) return;
+        chunk[i] = (byte) item;
+        
+        if(old == SnakeEngine.NO_ITEM) addFree(c, -1);
+        else if(item == SnakeEngine.NO_ITEM) addFree(c, 1);
+        
+        if(old == blank) changed[c]++;
+        else if(item == blank && --changed[c] == 0) {
+            //The chunk is blank again, so we don't need to keep it
+            chunks[c] = null;
+            allocated--;
+        }
+    }
+    public int pickFree(GameRandom generator) {
+        /*
+         * Chooses an empty box at random (every empty box equally likely). The tree finds
+         * which chunk it's in, and then we look through that chunk for it.
+         *
+         * Parameters: generator - the random number generator to use
+         * Returns: The chosen box, packed like SnakeObject's locations, or SnakeObject.NO_CELL if there are none
+         */
+        if(freeCount == 0) return SnakeObject.NO_CELL;
+        int k = generator.nextInt(freeCount); //We want the k-th empty box (counting from 0)
+        
+        //Walk down the tree, skipping over whole groups of chunks with k or fewer empty boxes
+        int c = 0;
+        for(int step = Integer.highestOneBit(free.length); step > 0; step >>= 1) {
+            if(c + step < freeTree.length && freeTree[c + step] <= k) {
+                c += step;
+                k -= freeTree[c];
+            }
+        }
+        
+        //assert: chunk c has more than k empty boxes
+        int x0 = (c / chunksHigh) << CHUNK_BITS;
+        int y0 = (c % chunksHigh) << CHUNK_BITS;
+        for(int x = x0; x < x0 + CHUNK_SIZE && x < width; x++) {
+            for(int y = y0; y < y0 + CHUNK_SIZE && y < height; y++) {
+                if(get(x, y) == SnakeEngine.NO_ITEM && k-- == 0) return SnakeObject.pack(x, y);
+            }
+        }
+        return SnakeObject.NO_CELL; //Can't happen as long as the counts are right
+    }
+    
+    
+    /*
+     *
+     * Saving and loading whole chunks (see SaveState).
+     *
+     */
+    byte[] getChunk(int c) {
+        //Returns: Chunk c, or null if it's blank. Boxes are at (x % CHUNK_SIZE) * CHUNK_SIZE + (y % CHUNK_SIZE).
+        return chunks[c];
+    }
+    int getChangedCount(int c) {
+        //Returns: How many boxes in chunk c aren't blank
+        return changed[c];
+    }
+    int getFreeCount(int c) {
+        //Returns: How many boxes in chunk c are empty
+        return free[c];
+    }
+    void loadChunk(int c, java.nio.ByteBuffer in, int changedCount, int freeCount) {
+        /*
+         * Fills in a chunk of a blank board from a saved copy. The counts are saved along with
+         * it, so there's no need to look through it.
+         *
+         * Parameters:
+         * c - which chunk
+         * in - where to read it from, CHUNK_SIZE * CHUNK_SIZE bytes
+         * changedCount - how many of its boxes aren't blank (see getChangedCount())
+         * freeCount - how many of its boxes are empty (see getFreeCount())
+         * Returns: Nothing
+         */
+        byte[] chunk = new byte[CHUNK_SIZE * CHUNK_SIZE];
+        in.get(chunk);
+        if(chunks[c] == null) allocated++;
+        chunks[c] = chunk;
+        changed[c] = changedCount;
+        addFree(c, freeCount - free[c]);
+    }
+    
+    /*
+     *
+     * Inner workings.
+     *
+     */
+    private int blankItem(int x, int y) {
+        //Returns: The item at (x, y) on a blank board - a wall at the edge, nothing inside
+        if(x == 0 || y == 0 || x == width - 1 || y == height - 1) return SnakeEngine.WALL_ITEM;
+        return SnakeEngine.NO_ITEM;
+    }
+    private byte[] allocate(int c) {
+        /*
+         * Gives chunk c its memory, filled in as blank board.
+         *
+         * Parameters: c - which chunk
+         * Returns: The new chunk
+         */
+        byte[] chunk = new byte[CHUNK_SIZE * CHUNK_SIZE];
+        int x0 = (c / chunksHigh) << CHUNK_BITS;
+        int y0 = (c % chunksHigh) << CHUNK_BITS;
+        
+        //Only chunks along the edge have any walls in them
+        if(x0 == 0 || y0 == 0 || x0 + CHUNK_SIZE >= width || y0 + CHUNK_SIZE >= height) {
+            for(int x = x0; x < x0 + CHUNK_SIZE && x < width; x++) {
+                for(int y = y0; y < y0 + CHUNK_SIZE && y < height; y++) {
+                    chunk[((x & CHUNK_MASK) << CHUNK_BITS) | (y & CHUNK_MASK)] = (byte) blankItem(x, y);
+                }
+            }
+        }
+        chunks[c] = chunk;
+        allocated++;
+        return chunk;
+    }
+    private void addFree(int c, int amount) {
+        /*
+         * Changes the number of empty boxes in chunk c, and everything in the tree that counts it.
+         *
+         * Parameters:
+         * c - which chunk
+         * amount - how many more empty boxes it has (or fewer, if negative)
+         * Returns: Nothing
+         */
+        free[c] += amount;
+        freeCount += amount;
+        for(int i = c + 1; i < freeTree.length; i += i & -i) freeTree[i] += amount;
+    }
+    
+    /*
+     *
+     * Accessor methods.
+     *
+     */
+    public int getWidth() {
+        //Returns: The length of the board, walls included
+        return width;
+    }
+    public int getHeight() {
+        //Returns: The width of the board, walls included
+        return height;
+    }
+    public int getFreeCount() {
+        //Returns: The number of empty boxes on the board
+        return freeCount;
+    }
+    public int getChunkCount() {
+        //Returns: The number of chunks the board is split into, with memory or without
+        return chunks.length;
+    }
+    public int getAllocatedChunks() {
+        //Returns: The number of chunks that have memory right now
+        return allocated;
+    }
+}
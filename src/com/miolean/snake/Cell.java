@@ -0,0 +1,36 @@
+/*
+ * Miles Krusniak
+ * Cell.java (Snake)
+ * 
+ * A Cell is a plain (x, y) pair of board coordinates. SnakeObject used to
+ * keep its body as java.awt.Points, but the game engine shouldn't need
+ * anything from AWT just to remember where the snake is.
+ */
+
+package com.miolean.snake;
+
+public class Cell {
+    /*
+     * A pair of board coordinates.
+     * 
+     * Extends: Nothing
+     * Implements: Nothing
+     */
+    
+    //Public for the same reason java.awt.Point's are: it's just a pair of numbers
+    public int x;
+    public int y;
+    
+    public Cell(int x, int y) {
+        /*
+         * Constructor for Cells.
+         * 
+         * Parameters:
+         * x - x coordinate
+         * y - y coordinate
+         * Returns: A constructed Cell
+         */
+        this.x = x;
+        this.y = y;
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Miles Krusniak
+ * FreeCellSet.java (Snake)
+ *
+ * FreeCellSet keeps track of which boxes on the board are empty, so that a
+ * new pickup can go in a random empty box straight away, instead of
+ * guessing boxes until we happen to hit an empty one (which takes longer
+ * and longer as the snake fills the board, and forever once it's full).
+ *
+ * The empty boxes are kept packed together at the front of one array, and
+ * a second array remembers where each box is in the first one. Adding,
+ * removing and picking a random box are then all a couple of array accesses.
+ */
+
+package com.miolean.snake;
+
+public class FreeCellSet {
+    /*
+     * A set of board boxes supporting constant-time add, remove and random pick.
+     *
+     * Extends: Nothing
+     * Implements: Nothing
+     */
+    
+    //A box is numbered x * height + y
+    private int height;
+    private int[] cells; //The boxes in the set, in cells[0] through cells[count - 1]
+    private int[] positions; //For each box, where it is in cells, or -1 if it isn't in the set
+    private int count;
+    
+    public FreeCellSet(int width, int height) {
+        /*
+         * Constructor for FreeCellSets. Every box starts out in the set (a brand
+         * new board is all empty).
+         *
+         * Parameters:
+         * width - number of boxes of board length
+         * height - number of boxes of board width
+         * Returns: Constructed FreeCellSet
+         */
+        this.height = height;
+        cells = new int[width * height];
+        positions = new int[width * height];
+        reset();
+    }
+    
+    public void reset() {
+        //Puts every box back in the set
+        for(int i = 0; i < cells.length; i++) {
+            cells[i] = i;
+            positions[i] = i;
+        }
+        count = cells.length;
+    }
+    
+    public void add(int x, int y) {
+        /*
+         * Puts the box at (x, y) in the set, if it isn't already.
+         *
+         * Parameters:
+         * x - x value of the board location
+         * y - y value of the board location
+         * Returns: Nothing
+         */
+        int cell = x * height + y;
+        if(positions[cell] >= 0) return;
+        cells[count] = cell;
+        positions[cell] = count;
+        count++;
+    }
+    public void remove(int x, int y) {
+        /*
+         * Takes the box at (x, y) out of the set, if it's in it. The last box in
+         * the array takes its place so there are no gaps.
+         *
+         * Parameters:
+         * x - x value of the board location
+         * y - y value of the board location
+         * Returns: Nothing
+         */
+        int cell = x * height + y;
+        int position = positions[cell];
+        if(position < 0) return;
+        count--;
+        int last = cells[count];
+        cells[position] = last;
+        positions[last] = position;
+        positions[cell] = -1;
+    }
+    void save(java.nio.IntBuffer out) {
+        /*
+         * Writes the boxes in the set down, in the order they're in, so that load() can
+         * put them back that way (pick() depends on the order as well as on the boxes).
+         *
+         * Parameters: out - where to write them
+         * Returns: Nothing
+         */
+        out.put(cells, 0, count);
+    }
+    void load(java.nio.IntBuffer in, int count) {
+        /*
+         * Replaces the set with boxes written down by save().
+         *
+         * Parameters:
+         * in - where to read them from
+         * count - how many there are
+         * Returns: Nothing
+         */
+        java.util.Arrays.fill(positions, -1);
+        in.get(cells, 0, count);
+        for(int i = 0; i < count; i++) positions[cells[i]] = i;
+        this.count = count;
+    }
+    public int pick(GameRandom generator) {
+        /*
+         * Chooses a box from the set at random (every box equally likely). The box stays in the set.
+         *
+         * Parameters: generator - the random number generator to use
+         * Returns: The chosen box, packed like SnakeObject's locations, or SnakeObject.NO_CELL if the set is empty
+         */
+        if(count == 0) return SnakeObject.NO_CELL;
+        int cell = cells[generator.nextInt(count)];
+        return SnakeObject.pack(cell / height, cell % height);
+    }
+    
+    /*
+     *
+     * Accessor methods.
+     *
+     */
+    public boolean contains(int x, int y) {
+        //Returns: Whether the box at (x, y) is in the set
+        return positions[x * height + y] >= 0;
+    }
+    public int size() {
+        //Returns: The number of boxes in the set
+        return count;
+    }
+}
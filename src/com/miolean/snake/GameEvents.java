@@ -0,0 +1,259 @@
+/*
+ * Miles Krusniak
+ * GameEvents.java (Snake)
+ *
+ * GameEvents puts what the game does into JDK Flight Recorder recordings,
+ * next to the GC, JIT and thread events the JVM records anyway, so that a
+ * slow tick or a hitch in drawing can be lined up with whatever the JVM was
+ * doing at the time. Start a recording the usual way, e.g.
+ *   java -XX:StartFlightRecording=filename=snake.jfr -jar snake.jar
+ * or with jcmd, and the events show up under "Snake" in JDK Mission Control.
+ *
+ * The events are:
+ *   Tick         - SnakeEngine.step(), with the snake's size and speed and the pickups on the board
+ *   Frame        - SnakeGame.applyBoard(), which captures the board for the window
+ *   Pickup Placed, Pickup Eaten, Pickup Decayed - with the pickup and where it was
+ *   Death        - what the snake ran into, and how the game stood
+ *   Score Write  - ScoreLog writing scores to the disk, with how many writes it took
+ * Ticks and frames happen hundreds of times a second (millions, headless), so
+ * by default only ones that take at least a millisecond are recorded. Set
+ * their threshold to 0 ms in the recording settings to get every one.
+ *
+ * These stay in every build. When nothing is being recorded, an event's
+ * shouldCommit() is always false and the JIT sees through the rest, so no
+ * event is made or filled in. The event classes need the jdk.jfr module;
+ * ENABLED is false without it (say, in a runtime made with jlink that left it
+ * out), and then the event classes are never loaded. Only this file mentions jdk.jfr, so everything else runs
+ * on any JVM.
+ */
+
+package com.miolean.snake;
+
+import jdk.jfr.*;
+
+public class GameEvents {
+    /*
+     * The game's Flight Recorder events, and helpers for firing them.
+     *
+     * Extends: Nothing
+     * Implements: Nothing
+     */
+    
+    //Whether this JVM has Flight Recorder events at all. Nothing below may be touched if not.
+    final static boolean ENABLED = hasFlightRecorder();
+    
+    private GameEvents() {
+        //Constructor for GameEvents. Nothing should make one; everything here is static.
+    }
+    
+    private static boolean hasFlightRecorder() {
+        //Returns: Whether jdk.jfr can be used
+        try {
+            Class.forName("jdk.jfr.Event");
+            return true;
+        }
+        catch(ClassNotFoundException e) {
+            return false;
+        }
+        catch(LinkageError e) {
+            return false;
+        }
+    }
+    
+    /*
+     *
+     * Ticks and frames. These are timed, so they're begun and then finished.
+     *
+     */
+    @Name("com.miolean.snake.Tick")
+    @Label("Tick")
+    @Category("Snake")
+    @Description("One move of the snake")
+    @StackTrace(false)
+    @Threshold("1 ms")
+    static class Tick extends Event {
+        @Label("Tick") long tick;
+        @Label("Size") int size;
+        @Label("Speed") @Description("Milliseconds of game time a move takes") int speed;
+        @Label("Pickups") @Description("Pickups on the board after the tick") int pickups;
+        @Label("Died") boolean died;
+        
+        void finish(long tick, int size, int speed, int pickups, boolean died) {
+            //Ends the tick and records it, if it's being recorded
+            end();
+            if(!shouldCommit()) return;
+            this.tick = tick;
+            this.size = size;
+            this.speed = speed;
+            this.pickups = pickups;
+            this.died = died;
+            commit();
+        }
+    }
+    static Tick beginTick() {
+        //Returns: A tick event that has begun, to be finished when the tick is over
+        Tick event = new Tick();
+        event.begin();
+        return event;
+    }
+    
+    @Name("com.miolean.snake.Frame")
+    @Label("Frame")
+    @Category("Snake")
+    @Description("The game thread capturing the board for the window to draw")
+    @StackTrace(false)
+    @Threshold("1 ms")
+    static class Frame extends Event {
+        @Label("Frame") long frame;
+        @Label("Tick") long tick;
+        @Label("Size") int size;
+        @Label("Pickups") int pickups;
+        @Label("Dead") boolean dead;
+        
+        void finish(long frame, long tick, int size, int pickups, boolean dead) {
+            //Ends the frame and records it, if it's being recorded
+            end();
+            if(!shouldCommit()) return;
+            this.frame = frame;
+            this.tick = tick;
+            this.size = size;
+            this.pickups = pickups;
+            this.dead = dead;
+            commit();
+        }
+    }
+    static Frame beginFrame() {
+        //Returns: A frame event that has begun, to be finished when the frame has been handed over
+        Frame event = new Frame();
+        event.begin();
+        return event;
+    }
+    
+    /*
+     *
+     * Pickups and deaths. These happen at an instant.
+     *
+     */
+    @Name("com.miolean.snake.PickupPlaced")
+    @Label("Pickup Placed")
+    @Category("Snake")
+    @StackTrace(false)
+    static class PickupPlaced extends Event {
+        @Label("Pickup") String pickup;
+        @Label("X") int x;
+        @Label("Y") int y;
+        @Label("Pickups") @Description("Pickups on the board, counting this one") int pickups;
+    }
+    static void pickupPlaced(String pickup, int x, int y, int pickups) {
+        PickupPlaced event = new PickupPlaced();
+        if(!event.shouldCommit()) return;
+        event.pickup = pickup;
+        event.x = x;
+        event.y = y;
+        event.pickups = pickups;
+        event.commit();
+    }
+    
+    @Name("com.miolean.snake.PickupEaten")
+    @Label("Pickup Eaten")
+    @Category("Snake")
+    @StackTrace(false)
+    static class PickupEaten extends Event {
+        @Label("Pickup") String pickup;
+        @Label("X") int x;
+        @Label("Y") int y;
+        @Label("Size") @Description("The snake's size before it grows") int size;
+        @Label("Points") @Description("The score after eating it") int points;
+        @Label("Speed") @Description("Milliseconds of game time a move takes, after eating it") int speed;
+    }
+    static void pickupEaten(String pickup, int x, int y, int size, int points, int speed) {
+        PickupEaten event = new PickupEaten();
+        if(!event.shouldCommit()) return;
+        event.pickup = pickup;
+        event.x = x;
+        event.y = y;
+        event.size = size;
+        event.points = points;
+        event.speed = speed;
+        event.commit();
+    }
+    
+    @Name("com.miolean.snake.PickupDecayed")
+    @Label("Pickup Decayed")
+    @Category("Snake")
+    @StackTrace(false)
+    static class PickupDecayed extends Event {
+        @Label("Pickup") String pickup;
+        @Label("X") int x;
+        @Label("Y") int y;
+        @Label("Pickups") @Description("Pickups left on the board") int pickups;
+    }
+    static void pickupDecayed(String pickup, int x, int y, int pickups) {
+        PickupDecayed event = new PickupDecayed();
+        if(!event.shouldCommit()) return;
+        event.pickup = pickup;
+        event.x = x;
+        event.y = y;
+        event.pickups = pickups;
+        event.commit();
+    }
+    
+    @Name("com.miolean.snake.Death")
+    @Label("Death")
+    @Category("Snake")
+    @StackTrace(false)
+    static class Death extends Event {
+        @Label("Cause") @Description("What the snake ran into") String cause;
+        @Label("Tick") long tick;
+        @Label("Size") int size;
+        @Label("Points") int points;
+        @Label("Speed") int speed;
+        @Label("Pickups") int pickups;
+    }
+    static void death(String cause, long tick, int size, int points, int speed, int pickups) {
+        Death event = new Death();
+        if(!event.shouldCommit()) return;
+        event.cause = cause;
+        event.tick = tick;
+        event.size = size;
+        event.points = points;
+        event.speed = speed;
+        event.pickups = pickups;
+        event.commit();
+    }
+    
+    /*
+     *
+     * Saving scores. Timed, like ticks.
+     *
+     */
+    @Name("com.miolean.snake.ScoreWrite")
+    @Label("Score Write")
+    @Category("Snake")
+    @Description("ScoreLog's writer thread writing a batch of scores, and syncing them if it's time")
+    static class ScoreWrite extends Event {
+        @Label("Scores") int scores;
+        @Label("Writes") @Description("Calls to write it took") int writes;
+        @Label("Retries") @Description("Writes that only wrote part of what was left, and had to be tried again") int retries;
+        @Label("Synced") boolean synced;
+        @Label("Failed") boolean failed;
+        
+        void finish(int scores, int writes, boolean synced, boolean failed) {
+            //Ends the write and records it, if it's being recorded
+            end();
+            if(!shouldCommit()) return;
+            this.scores = scores;
+            this.writes = writes;
+            this.retries = Math.max(writes - 1, 0);
+            this.synced = synced;
+            this.failed = failed;
+            commit();
+        }
+    }
+    static ScoreWrite beginScoreWrite() {
+        //Returns: A score write event that has begun, to be finished when the write is over
+        ScoreWrite event = new ScoreWrite();
+        event.begin();
+        return event;
+    }
+}
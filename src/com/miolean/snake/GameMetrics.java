@@ -0,0 +1,194 @@
+/*
+ * Miles Krusniak
+ * GameMetrics.java (Snake)
+ *
+ * GameMetrics keeps count of what the game is doing and how long it takes:
+ * how long ticks, drawing and pickup placement take (as
+ * LatencyHistograms), and how many ticks, deaths, pickups and redrawn boxes
+ * there have been. It's shown through JMX (see GameMetricsMXBean) and as a
+ * text dump (the headless modes print one at the end, and M prints one in
+ * the window).
+ *
+ * It's only on when the game is run with -Dsnake.metrics=true. ENABLED is a
+ * constant, so when it's off, every "if(GameMetrics.ENABLED)" is compiled
+ * away and costs nothing at all. When it's on, a tick takes a few hundred
+ * nanoseconds, and reading the clock twice takes a good part of that, so
+ * only one tick in SAMPLE_EVERY is timed, along with any pickup placement in
+ * it. Each engine keeps its own tick count, and adds it to the count here on
+ * the timed ones and when a game ends (see SnakeEngine.countTicks()), so an
+ * ordinary tick costs no more than counting down to the next timed one.
+ * Drawing happens a lot less often than a tick, so all of it is timed.
+ */
+
+package com.miolean.snake;
+
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import javax.management.*;
+
+public class GameMetrics implements GameMetricsMXBean {
+    /*
+     * Counters and timings for the whole program.
+     *
+     * Extends: Nothing
+     * Implements: GameMetricsMXBean
+     */
+    
+    //Whether to keep metrics at all, and the one set of them
+    final static boolean ENABLED = Boolean.getBoolean("snake.metrics");
+    final static GameMetrics METRICS = new GameMetrics();
+    final static String NAME = "com.miolean.snake:type=GameMetrics";
+    
+    //One tick in this many is timed (a power of two). A timed tick costs a few dozen nanoseconds
+    //more, so this keeps metrics well under 1% of a tick.
+    final static int SAMPLE_EVERY = 1024;
+    
+    //Timings
+    final LatencyHistogram tickTime = new LatencyHistogram(); //SnakeEngine.step()
+    final LatencyHistogram captureTime = new LatencyHistogram(); //SnakeGame.applyBoard(), on the game thread
+    final LatencyHistogram renderTime = new LatencyHistogram(); //SnakeGame.drawFrame(), on the event dispatch thread
+    final LatencyHistogram placeTime = new LatencyHistogram(); //SnakeEngine.addPickup(), in the ticks that are timed
+    
+    //Counters
+    final AtomicLong ticks = new AtomicLong();
+    final AtomicLong deaths = new AtomicLong();
+    final AtomicLong placeMisses = new AtomicLong(); //addPickup() calls that placed nothing (chaos mode's dice, or no room)
+    final AtomicLong frames = new AtomicLong();
+    final AtomicLong boxesRedrawn = new AtomicLong();
+    final AtomicLongArray placed = new AtomicLongArray(PickupRegistry.MAX_ITEM + 1); //By item
+    final AtomicLongArray eaten = new AtomicLongArray(PickupRegistry.MAX_ITEM + 1);
+    final AtomicLongArray decayed = new AtomicLongArray(PickupRegistry.MAX_ITEM + 1);
+    
+    //What the items are called, for dumps
+    private String[] itemNames = new String[PickupRegistry.MAX_ITEM + 1];
+    private volatile long since = System.currentTimeMillis();
+    
+    private GameMetrics() {
+        //Constructor for GameMetrics. There's only ever one (METRICS).
+    }
+    
+    static void register(PickupRegistry registry) {
+        /*
+         * Makes the metrics show up through JMX, and learns what the pickups are
+         * called. Does nothing unless metrics are on.
+         *
+         * Parameters: registry - the kinds of pickup being played with
+         * Returns: Nothing
+         */
+        if(!ENABLED) return;
+        for(PickupType type : registry.getTypes()) METRICS.itemNames[type.item] = type.name;
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(NAME);
+            if(!server.isRegistered(name)) server.registerMBean(METRICS, name);
+        }
+        catch(JMException e) {
+            System.err.println("Couldn't show the metrics through JMX: " + e.getMessage());
+        }
+    }
+    
+    /*
+     *
+     * GameMetricsMXBean methods.
+     *
+     */
+    public long getTicks() {
+        return ticks.get();
+    }
+    public long getDeaths() {
+        return deaths.get();
+    }
+    public long getFramesDrawn() {
+        return frames.get();
+    }
+    public Map<String, Long> getCounters() {
+        Map<String, Long> counters = new LinkedHashMap<String, Long>();
+        counters.put("ticks", ticks.get());
+        counters.put("deaths", deaths.get());
+        counters.put("placeMisses", placeMisses.get());
+        counters.put("frames", frames.get());
+        counters.put("boxesRedrawn", boxesRedrawn.get());
+        for(int item = 0; item < itemNames.length; item++) {
+            if(placed.get(item) == 0 && eaten.get(item) == 0 && decayed.get(item) == 0) continue;
+            counters.put("placed." + itemName(item), placed.get(item));
+            counters.put("eaten." + itemName(item), eaten.get(item));
+            counters.put("decayed." + itemName(item), decayed.get(item));
+        }
+        return counters;
+    }
+    public Map<String, Long> getLatencies() {
+        Map<String, Long> latencies = new LinkedHashMap<String, Long>();
+        String[] names = histogramNames();
+        LatencyHistogram[] histograms = histograms();
+        for(int i = 0; i < histograms.length; i++) {
+            latencies.put(names[i] + ".mean", (long) histograms[i].getMean());
+            latencies.put(names[i] + ".p50", histograms[i].getPercentile(50));
+            latencies.put(names[i] + ".p99", histograms[i].getPercentile(99));
+            latencies.put(names[i] + ".p999", histograms[i].getPercentile(99.9));
+            latencies.put(names[i] + ".max", histograms[i].getMax());
+        }
+        return latencies;
+    }
+    public String dump() {
+        /*
+         * Puts every counter and timing into a table.
+         *
+         * Parameters: None
+         * Returns: The table, several lines long
+         */
+        StringBuilder out = new StringBuilder();
+        Formatter format = new Formatter(out);
+        format.format("Snake metrics over %.1f s%n", (System.currentTimeMillis() - since) / 1000.0);
+        format.format("  ticks %d, deaths %d, frames drawn %d, boxes redrawn %d, placements that missed %d%n",
+            ticks.get(), deaths.get(), frames.get(), boxesRedrawn.get(), placeMisses.get());
+        
+        format.format("  %-10s %10s %10s %10s %10s %10s %10s (ns)%n", "", "count", "mean", "p50", "p99", "p99.9", "max");
+        String[] names = histogramNames();
+        LatencyHistogram[] histograms = histograms();
+        for(int i = 0; i < histograms.length; i++) {
+            LatencyHistogram h = histograms[i];
+            format.format("  %-10s %10d %10.0f %10d %10d %10d %10d%n", names[i], h.getCount(), h.getMean(),
+                h.getPercentile(50), h.getPercentile(99), h.getPercentile(99.9), h.getMax());
+        }
+        
+        format.format("  %-10s %10s %10s %10s%n", "pickup", "placed", "eaten", "decayed");
+        for(int item = 0; item < itemNames.length; item++) {
+            if(placed.get(item) == 0 && eaten.get(item) == 0 && decayed.get(item) == 0) continue;
+            format.format("  %-10s %10d %10d %10d%n", itemName(item), placed.get(item), eaten.get(item), decayed.get(item));
+        }
+        format.flush();
+        return out.toString();
+    }
+    public void reset() {
+        for(LatencyHistogram h : histograms()) h.reset();
+        ticks.set(0);
+        deaths.set(0);
+        placeMisses.set(0);
+        frames.set(0);
+        boxesRedrawn.set(0);
+        for(int item = 0; item < itemNames.length; item++) {
+            placed.set(item, 0);
+            eaten.set(item, 0);
+            decayed.set(item, 0);
+        }
+        since = System.currentTimeMillis();
+    }
+    
+    /*
+     *
+     * Helpers for the above.
+     *
+     */
+    private LatencyHistogram[] histograms() {
+        return new LatencyHistogram[] {tickTime, captureTime, renderTime, placeTime};
+    }
+    private static String[] histogramNames() {
+        return new String[] {"tick", "capture", "render", "place"};
+    }
+    private String itemName(int item) {
+        //Returns: What a pickup is called, or its item number if nobody said
+        return (itemNames[item] != null) ? itemNames[item] : "item" + item;
+    }
+}
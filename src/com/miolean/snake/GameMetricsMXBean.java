@@ -0,0 +1,38 @@
+/*
+ * Miles Krusniak
+ * GameMetricsMXBean.java (Snake)
+ *
+ * What GameMetrics shows through JMX, so that jconsole (or anything else
+ * that speaks JMX) can watch a game while it's being played. It shows up as
+ * com.miolean.snake:type=GameMetrics when the game is run with
+ * -Dsnake.metrics=true.
+ */
+
+package com.miolean.snake;
+
+import java.util.Map;
+
+public interface GameMetricsMXBean {
+    /*
+     * The JMX view of GameMetrics.
+     *
+     * Extends: Nothing
+     * Implements: Nothing
+     */
+    
+    //Returns: Ticks played (a game's last few are added when it ends or starts over)
+    long getTicks();
+    //Returns: Snakes that have died
+    long getDeaths();
+    //Returns: Frames the window has drawn
+    long getFramesDrawn();
+    //Returns: Every counter, by name (see GameMetrics.dump() for what they are)
+    Map<String, Long> getCounters();
+    //Returns: The mean, 50th, 99th and 99.9th percentile and longest time of everything timed, in nanoseconds, by name
+    Map<String, Long> getLatencies();
+    
+    //Returns: Everything, as text
+    String dump();
+    //Starts every counter and timing over
+    void reset();
+}
@@ -0,0 +1,140 @@
+/*
+ * Miles Krusniak
+ * GameRandom.java (Snake)
+ *
+ * GameRandom is the random number generator for a game of Snake. Each game
+ * gets exactly one, made from a seed, so the same seed (and the same moves)
+ * always gives the same pickups in the same places. It can also be split
+ * into a new, independent generator, so that games running side by side
+ * each get their own numbers without having to share (or wait on) one.
+ *
+ * It's the SplitMix64 algorithm, the same one java.util.SplittableRandom
+ * uses. We have our own copy so that its state can be read and restored.
+ */
+
+package com.miolean.snake;
+
+public class GameRandom {
+    /*
+     * A seedable, splittable random number generator with visible state.
+     *
+     * Extends: Nothing
+     * Implements: Nothing
+     */
+    
+    //The default step between states (the golden ratio, as a 64-bit fraction)
+    final private static long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+    
+    //The whole state of the generator. Each number comes from stepping seed by gamma.
+    private long seed;
+    private long gamma; //Always odd
+    
+    public GameRandom(long seed) {
+        /*
+         * Constructor for GameRandoms.
+         *
+         * Parameters: seed - the seed. The same seed always gives the same numbers.
+         * Returns: Constructed GameRandom
+         */
+        this(seed, GOLDEN_GAMMA);
+    }
+    public GameRandom(long seed, long gamma) {
+        /*
+         * Constructor for GameRandoms from a complete state, as from getSeed() and getGamma().
+         *
+         * Parameters:
+         * seed - the current seed
+         * gamma - the step between seeds (must be odd)
+         * Returns: Constructed GameRandom
+         */
+        this.seed = seed;
+        this.gamma = gamma;
+    }
+    public static long newSeed() {
+        //Returns: A seed for when nobody asked for one in particular
+        return mix64(System.nanoTime() ^ System.currentTimeMillis() * GOLDEN_GAMMA);
+    }
+    
+    /*
+     *
+     * Random numbers.
+     *
+     */
+    public long nextLong() {
+        //Returns: A random long
+        return mix64(nextSeed());
+    }
+    public int nextInt(int bound) {
+        /*
+         * Chooses a random int from 0 (inclusive) to bound (exclusive), all equally likely.
+         *
+         * Parameters: bound - one more than the largest number we want (must be positive)
+         * Returns: The random int
+         */
+        int r = mix32(nextSeed());
+        int m = bound - 1;
+        if((bound & m) == 0) return r & m; //Power of two: just take the low bits
+        
+        //Otherwise throw out numbers from the uneven part at the top of the range
+        for(int u = r >>> 1; u + m - (r = u % bound) < 0; u = mix32(nextSeed()) >>> 1) {
+        }
+        return r;
+    }
+    public double nextDouble() {
+        //Returns: A random double from 0 (inclusive) to 1 (exclusive)
+        return (mix64(nextSeed()) >>> 11) * 0x1.0p-53;
+    }
+    public GameRandom split() {
+        /*
+         * Makes a new generator whose numbers have nothing to do with this one's. This one
+         * moves on as well, so splitting twice gives two different generators.
+         *
+         * Parameters: None
+         * Returns: The new GameRandom
+         */
+        return new GameRandom(nextLong(), mixGamma(nextSeed()));
+    }
+    
+    /*
+     *
+     * Accessor methods, for saving the generator's state.
+     *
+     */
+    public long getSeed() {
+        //Returns: The current seed (this changes every time a number is made)
+        return seed;
+    }
+    public long getGamma() {
+        //Returns: The step between seeds
+        return gamma;
+    }
+    
+    /*
+     *
+     * The arithmetic behind it.
+     *
+     */
+    private long nextSeed() {
+        //Returns: The next seed
+        return seed += gamma;
+    }
+    private static long mix64(long z) {
+        //Returns: z with its bits thoroughly scrambled
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+    private static int mix32(long z) {
+        //Returns: 32 scrambled bits of z
+        z = (z ^ (z >>> 33)) * 0x62a9d9ed799705f5L;
+        return (int) (((z ^ (z >>> 28)) * 0xcb24d0a5c88c35b3L) >>> 32);
+    }
+    private static long mixGamma(long z) {
+        //Returns: A gamma made from z - odd, with a good mix of 0 and 1 bits
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        z = (z ^ (z >>> 33)) | 1L;
+        int n = Long.bitCount(z ^ (z >>> 1));
+        return (n < 24) ? z ^ 0xaaaaaaaaaaaaaaaaL : z;
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Miles Krusniak
+ * GreedyDriver.java (Snake)
+ *
+ * GreedyDriver is a simple bot: it heads for the nearest pickup that won't
+ * kill it, and never steps into anything that would, if it can help it.
+ * It only looks one box ahead, so it can still get itself boxed in. It can
+ * steer a snake in a SnakeArena, or the only snake in a SnakeEngine.
+ */
+
+package com.miolean.snake;
+
+public class GreedyDriver implements SnakeDriver {
+    /*
+     * A bot that chases the closest pickup.
+     *
+     * Extends: Nothing
+     * Implements: SnakeDriver
+     */
+    
+    //The directions to try, in order
+    final private static int[] DIRECTIONS = {SnakeObject.LEFT, SnakeObject.RIGHT, SnakeObject.UP, SnakeObject.DOWN};
+    
+    //This bot's own random numbers, for breaking ties. Each bot needs its own, since
+    //they all decide at once, and sharing one would make the game depend on who went first.
+    private GameRandom generator;
+    
+    public GreedyDriver(GameRandom generator) {
+        /*
+         * Constructor for GreedyDrivers.
+         *
+         * Parameters: generator - random numbers for this bot alone (see GameRandom.split())
+         * Returns: Constructed GreedyDriver
+         */
+        this.generator = generator;
+    }
+    
+    public int nextDirection(SnakeArena arena, int snake) {
+        /*
+         * Chooses the safe direction that gets closest to the nearest pickup.
+         *
+         * Parameters:
+         * arena - the arena the snake is in
+         * snake - which snake in the arena
+         * Returns: The direction to go, or SnakeEngine.NO_TURN if nothing is safe
+         */
+        return choose(arena.getSnake(snake), arena.getBoard(), arena.pickups, arena.registry);
+    }
+    public int nextDirection(SnakeEngine engine) {
+        /*
+         * Chooses the safe direction that gets closest to the nearest pickup, for the snake in
+         * a single-snake game. Pass the result to the engine's step().
+         *
+         * Parameters: engine - the game the snake is in
+         * Returns: The direction to go, or SnakeEngine.NO_TURN if nothing is safe
+         */
+        return choose(engine.snake, engine.getBoard(), engine.pickups, engine.registry);
+    }
+    private int choose(SnakeObject self, BoardStore board, PickupIndex pickups, PickupRegistry registry) {
+        /*
+         * Does the choosing for both kinds of game.
+         *
+         * Parameters:
+         * self - the snake being steered
+         * board - the board it's on
+         * pickups - the pickups on the board
+         * registry - what the pickups do
+         * Returns: The direction to go, or SnakeEngine.NO_TURN if nothing is safe
+         */
+        int x = self.getHeadX() - 1; //Board locations, not snake locations
+        int y = self.getHeadY() - 1;
+        
+        //Find the closest pickup worth eating (by boxes up/down plus boxes left/right)
+        int targetX = x, targetY = y, closest = Integer.MAX_VALUE;
+        for(int i = 0; i < pickups.size(); i++) {
+            PickupType type = registry.get(pickups.getType(i));
+            if(type == null || type.deadly) continue;
+            int location = pickups.getLocation(i);
+            int distance = Math.abs(SnakeObject.getX(location) - x) + Math.abs(SnakeObject.getY(location) - y);
+            if(distance < closest) {
+                closest = distance;
+                targetX = SnakeObject.getX(location);
+                targetY = SnakeObject.getY(location);
+            }
+        }
+        
+        //Try each way we could go. Ties go to whichever one the coin flips favor.
+        int best = SnakeEngine.NO_TURN, bestDistance = Integer.MAX_VALUE, ties = 0;
+        for(int direction : DIRECTIONS) {
+            if(direction == SnakeObject.opposite(self.getDirection())) continue;
+            int nextX = x, nextY = y;
+            if(direction == SnakeObject.LEFT) nextX--;
+            if(direction == SnakeObject.RIGHT) nextX++;
+            if(direction == SnakeObject.UP) nextY--;
+            if(direction == SnakeObject.DOWN) nextY++;
+            
+            //Only go where it won't kill us (not counting other snakes' heads moving there too)
+            int item = board.get(nextX, nextY);
+            PickupType type = registry.get(item);
+            if(item != SnakeEngine.NO_ITEM && (type == null || type.deadly)) continue;
+            
+            int distance = Math.abs(targetX - nextX) + Math.abs(targetY - nextY);
+            if(distance < bestDistance) {
+                best = direction;
+                bestDistance = distance;
+                ties = 1;
+            } else if(distance == bestDistance && generator.nextInt(++ties) == 0) best = direction;
+        }
+        return best;
+    }
+}
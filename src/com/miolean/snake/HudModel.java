@@ -0,0 +1,145 @@
+/*
+ * Miles Krusniak
+ * HudModel.java (Snake)
+ *
+ * HudModel keeps track of what the text under the grid says: what the game
+ * is doing (waiting to start, being played, paused, over) and the numbers
+ * that go with it. The game thread tells it the numbers as often as it
+ * likes, and the text is only put together again when one of them has
+ * actually changed - so the window only has to lay out new text a few times
+ * a second at most, instead of on every pass of the game loop.
+ */
+
+package com.miolean.snake;
+
+public class HudModel {
+    /*
+     * The fields shown under the grid, and the text they make.
+     *
+     * Extends: Nothing
+     * Implements: Nothing
+     */
+    
+    //What the game is doing, which decides what the text says
+    final static int READY = 0; //Waiting for the player to press start
+    final static int RESUMABLE = 1; //Waiting to pick up a saved game
+    final static int PLAYING = 2;
+    final static int PAUSED = 3;
+    final static int DEAD = 4;
+    
+    //The fields as last set
+    private int status = READY;
+    private int speed, points, size;
+    private boolean chaos;
+    private boolean autopilot;
+    private String bestName = "";
+    private int bestPoints;
+    
+    //The text they make, and whether it needs putting together again. The builder is
+    //kept and reused, so the only thing made for new text is the String itself.
+    private StringBuilder builder = new StringBuilder(128);
+    private String text = null;
+    
+    //How many times the text has been put together, and asked for
+    private long renders = 0;
+    private long requests = 0;
+    
+    public HudModel() {
+        //Constructor for HudModels. HudModel has nothing to set up, so this method is empty.
+    }
+    
+    /*
+     *
+     * Mutator methods. Each one only throws the text away if something changed.
+     *
+     */
+    public void setStatus(int status) {
+        if(status == this.status) return;
+        this.status = status;
+        text = null;
+    }
+    public void setGame(int speed, int points, int size, boolean chaos) {
+        /*
+         * Sets the numbers shown about the game being played.
+         *
+         * Parameters:
+         * speed - the snake's movement speed, as shown (higher is faster)
+         * points - the score so far
+         * size - the snake's size
+         * chaos - whether the game is in chaos mode
+         * Returns: Nothing
+         */
+        if(speed == this.speed && points == this.points && size == this.size && chaos == this.chaos) return;
+        this.speed = speed;
+        this.points = points;
+        this.size = size;
+        this.chaos = chaos;
+        text = null;
+    }
+    public void setAutopilot(boolean autopilot) {
+        //Sets whether the autopilot is steering
+        if(autopilot == this.autopilot) return;
+        this.autopilot = autopilot;
+        text = null;
+    }
+    public void setHighScore(SnakeScore best) {
+        //Sets the high score to beat. Names are compared by reference, since a new name is always a new String.
+        if(best.points == bestPoints && best.playerName == bestName) return;
+        bestName = best.playerName;
+        bestPoints = best.points;
+        text = null;
+    }
+    
+    /*
+     *
+     * Accessor methods.
+     *
+     */
+    public String getText() {
+        /*
+         * Gets the text to show under the grid, putting it together again if anything changed.
+         *
+         * Parameters: None
+         * Returns: The text. It's the very same String as last time if nothing changed, so
+         *          whoever shows it can tell by comparing references.
+         */
+        requests++;
+        if(text != null) return text;
+        
+        builder.setLength(0);
+        switch(status) {
+            case READY:
+                builder.append("Press start to begin.");
+                break;
+            case RESUMABLE:
+                builder.append("Press start to pick up your saved game.");
+                break;
+            case PAUSED:
+                builder.append("Game is paused. Press 'resume' to resume.");
+                break;
+            case DEAD:
+                if(autopilot) builder.append("The autopilot died. The next game starts soon.        Score: ");
+                else builder.append("You died! Press 'reset'.        Score: ");
+                builder.append(points).append("  Size: ").append(size);
+                break;
+            default:
+                builder.append("Movement speed: ").append(speed).append("        ").append(points).append(" points")
+                    .append("         Size: ").append(size).append("\nHigh score: ").append(bestName)
+                    .append(" [").append(bestPoints).append(" points]");
+                if(chaos) builder.append("  |  Chaos Mode");
+                if(autopilot) builder.append("  |  Autopilot");
+                break;
+        }
+        text = builder.toString();
+        renders++;
+        return text;
+    }
+    public long getRenderCount() {
+        //Returns: How many times the text has been put together
+        return renders;
+    }
+    public long getRequestCount() {
+        //Returns: How many times the text has been asked for
+        return requests;
+    }
+}
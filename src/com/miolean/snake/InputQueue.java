@@ -0,0 +1,139 @@
+/*
+ * Miles Krusniak
+ * InputQueue.java (Snake)
+ *
+ * InputQueue carries the player's turns from the window to the game thread.
+ * The window puts each arrow key in as it's pressed, and the game thread
+ * takes them out at the start of a tick, so the snake only ever changes
+ * direction between moves. Two keys pressed quickly within one tick both
+ * count, one tick after the other, instead of the second one undoing the
+ * first (or slipping past the check that stops the snake turning back into
+ * itself, since that checked the direction the snake hadn't moved in yet).
+ *
+ * It's a ring of ints with one thread putting in and one taking out, so
+ * neither of them ever waits on a lock and nothing is made per key.
+ */
+
+package com.miolean.snake;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+public class InputQueue {
+    /*
+     * A bounded single-producer, single-consumer queue of turns.
+     *
+     * Extends: Nothing
+     * Implements: Nothing
+     */
+    
+    //How many turns can wait if the constructor isn't told
+    final static int DEFAULT_CAPACITY = 3;
+    
+    //The ring. Its length is a power of two so that a position is just masked, but no more
+    //than capacity turns are ever in it. tail is how many turns were ever put in, head how
+    //many were ever taken out. Each is only ever changed by its own thread, and lazySet()
+    //is enough to make the turn written before it visible to the other.
+    final private int[] ring;
+    final private int mask;
+    final private int capacity;
+    final private AtomicLong head = new AtomicLong();
+    final private AtomicLong tail = new AtomicLong();
+    
+    //The window's copy of head, only read again when the ring looks full
+    private long cachedHead = 0;
+    
+    public InputQueue(int capacity) {
+        /*
+         * Constructor for InputQueues.
+         *
+         * Parameters: capacity - how many turns can wait to be played (at least one). Keys pressed
+         *                        while that many are waiting are dropped.
+         * Returns: Constructed InputQueue
+         */
+        if(capacity < 1) throw new IllegalArgumentException("An input queue needs room for at least one turn");
+        this.capacity = capacity;
+        int length = Integer.highestOneBit(capacity);
+        if(length < capacity) length <<= 1;
+        ring = new int[length];
+        mask = length - 1;
+    }
+    
+    /*
+     *
+     * The window's end.
+     *
+     */
+    public boolean offer(int direction) {
+        /*
+         * Puts a turn at the back of the queue. Only one thread (the event dispatch thread) may call this.
+         *
+         * Parameters: direction - one of SnakeObject's directional constants
+         * Returns: Whether there was room for it
+         */
+        long t = tail.get();
+        if(t - cachedHead >= capacity) {
+            cachedHead = head.get();
+            if(t - cachedHead >= capacity) return false;
+        }
+        ring[(int) t & mask] = direction;
+        tail.lazySet(t + 1);
+        return true;
+    }
+    
+    /*
+     *
+     * The game thread's end.
+     *
+     */
+    public int poll() {
+        /*
+         * Takes the turn at the front of the queue. Only one thread (the game thread) may call this.
+         *
+         * Parameters: None
+         * Returns: The turn, or SnakeEngine.NO_TURN if there wasn't one
+         */
+        long h = head.get();
+        if(h == tail.get()) return SnakeEngine.NO_TURN;
+        int direction = ring[(int) h & mask];
+        head.lazySet(h + 1);
+        return direction;
+    }
+    public int nextTurn(int direction) {
+        /*
+         * Takes the next turn that will actually turn the snake, dropping any in front of it
+         * that wouldn't (the way it's going already, or straight back into itself). Turns
+         * behind it stay for the ticks after. Only the game thread may call this.
+         *
+         * Parameters: direction - the way the snake is going now
+         * Returns: The turn to make this tick, or SnakeEngine.NO_TURN if there isn't one
+         */
+        while(true) {
+            int turn = poll();
+            if(turn == SnakeEngine.NO_TURN) return turn;
+            if(turn != direction && turn != SnakeObject.opposite(direction)) return turn;
+        }
+    }
+    public void clear() {
+        /*
+         * Drops every waiting turn, e.g. when a new game starts. Only the game thread may call this.
+         *
+         * Parameters: None
+         * Returns: Nothing
+         */
+        head.lazySet(tail.get());
+    }
+    
+    /*
+     *
+     * Accessor methods.
+     *
+     */
+    public int size() {
+        //Returns: How many turns are waiting (only a guess, unless it's called from the game thread while no keys come in)
+        return (int) (tail.get() - head.get());
+    }
+    public int getCapacity() {
+        //Returns: How many turns can wait at once
+        return capacity;
+    }
+}
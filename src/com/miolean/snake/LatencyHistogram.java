@@ -0,0 +1,125 @@
+/*
+ * Miles Krusniak
+ * LatencyHistogram.java (Snake)
+ *
+ * A LatencyHistogram counts how long something took, in nanoseconds, so
+ * that GameMetrics can say how long it usually takes and how long it takes
+ * at worst without keeping every time. Times are counted in buckets: exact
+ * below 16 ns, and above that eight buckets for each doubling, so any time
+ * is off by at most an eighth in what's reported. That's 496 counters for
+ * every possible time, however many are recorded.
+ *
+ * Any number of threads can record at once (e.g. every engine in a
+ * BalanceSimulator); recording is a couple of atomic adds and never waits.
+ */
+
+package com.miolean.snake;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class LatencyHistogram {
+    /*
+     * A fixed-size histogram of times, with log-linear buckets.
+     *
+     * Extends: Nothing
+     * Implements: Nothing
+     */
+    
+    //Eight buckets for each power of two: the three bits after the highest one pick the bucket
+    final private static int SUB_BITS = 3;
+    final private static int SUB_BUCKETS = 1 << SUB_BITS;
+    final private static int BUCKETS = (64 - SUB_BITS + 1) << SUB_BITS;
+    
+    final private AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    final private AtomicLong count = new AtomicLong();
+    final private AtomicLong total = new AtomicLong();
+    final private AtomicLong max = new AtomicLong();
+    
+    public LatencyHistogram() {
+        //Constructor for LatencyHistograms. LatencyHistogram has nothing to set up, so this method is empty.
+    }
+    
+    public void record(long nanos) {
+        /*
+         * Counts one time.
+         *
+         * Parameters: nanos - how long it took (a negative time, from a clock that went backwards, counts as 0)
+         * Returns: Nothing
+         */
+        if(nanos < 0) nanos = 0;
+        counts.incrementAndGet(bucket(nanos));
+        count.incrementAndGet();
+        total.addAndGet(nanos);
+        long m = max.get();
+        while(nanos > m && !max.compareAndSet(m, nanos)) m = max.get();
+    }
+    public void reset() {
+        //Forgets every time counted so far. Times recorded while this runs may or may not be kept.
+        for(int i = 0; i < BUCKETS; i++) counts.set(i, 0);
+        count.set(0);
+        total.set(0);
+        max.set(0);
+    }
+    
+    /*
+     *
+     * Reading it back.
+     *
+     */
+    public long getCount() {
+        //Returns: How many times have been counted
+        return count.get();
+    }
+    public double getMean() {
+        //Returns: The average time, in nanoseconds (0 if none were counted)
+        long n = count.get();
+        return (n == 0) ? 0 : total.get() / (double) n;
+    }
+    public long getMax() {
+        //Returns: The longest time counted, in nanoseconds
+        return max.get();
+    }
+    public long getPercentile(double percent) {
+        /*
+         * Finds how long things take at most, leaving out the slowest few.
+         *
+         * Parameters: percent - how many of the times to include, from 0 to 100 (e.g. 99 for the 99th percentile)
+         * Returns: The time that percent of the counted times were no longer than, in nanoseconds (the top of its
+         *          bucket, but never more than the longest time), or 0 if none were counted
+         */
+        long n = 0;
+        long[] snapshot = new long[BUCKETS];
+        for(int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            n += snapshot[i];
+        }
+        if(n == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(n * percent / 100));
+        long seen = 0;
+        for(int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if(seen >= rank) return Math.min(highest(i), max.get());
+        }
+        return max.get();
+    }
+    
+    /*
+     *
+     * Buckets.
+     *
+     */
+    static int bucket(long nanos) {
+        //Returns: The bucket a time goes in
+        if(nanos < 2 * SUB_BUCKETS) return (int) nanos;
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        return ((exponent - SUB_BITS + 1) << SUB_BITS) | (int) ((nanos >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1));
+    }
+    static long highest(int bucket) {
+        //Returns: The longest time that goes in a bucket
+        if(bucket < 2 * SUB_BUCKETS) return bucket;
+        int exponent = (bucket >>> SUB_BITS) + SUB_BITS - 1;
+        long lowest = (long) (SUB_BUCKETS | (bucket & (SUB_BUCKETS - 1))) << (exponent - SUB_BITS);
+        return lowest + (1L << (exponent - SUB_BITS)) - 1;
+    }
+}
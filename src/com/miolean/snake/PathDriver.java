@@ -0,0 +1,424 @@
+/*
+ * Miles Krusniak
+ * PathDriver.java (Snake)
+ *
+ * PathDriver is the autopilot: a bot that finds its way around the board
+ * instead of just looking one box ahead (like GreedyDriver does). It does a
+ * breadth-first search out from the head, which gives the fewest moves to
+ * every box it can get to - the shortest path to the nearest pickup worth
+ * eating - and follows that path until it's no good any more. Before each
+ * move along it, it checks that the snake won't have shut itself in
+ * afterwards. The searching is what takes the time, so the path is only
+ * looked for again when the pickup is gone or the way is blocked, and the
+ * bot keeps up with well over a hundred thousand ticks a second headless.
+ *
+ * Both searches know the snake moves while it goes: a box the snake's own
+ * body is in counts as free if, by the time the head could get there, the
+ * tail will have moved off it. That makes "can the head still get to its
+ * tail" easy to check - a move is safe if a search from the box it goes to
+ * can reach any box the body will have left by then, since from there the
+ * head can always follow the body around. If no move is safe, it takes the
+ * one with the most room, and hopes. A snake that never finds it safe to
+ * eat could go round and round forever, so a hungry one stops checking.
+ *
+ * Every search uses the same few arrays, one int a box, made when the bot
+ * first sees a board and kept from then on. Instead of clearing them, each
+ * search has its own number, and a box only counts as seen if it holds the
+ * current one - so deciding a move never makes anything.
+ *
+ * It can steer a snake in a SnakeArena (where other snakes are in the way,
+ * and don't count as moving) or the only snake in a SnakeEngine.
+ */
+
+package com.miolean.snake;
+
+import java.util.Arrays;
+
+public class PathDriver implements SnakeDriver {
+    /*
+     * A bot that searches for the shortest safe path to a pickup.
+     *
+     * Extends: Nothing
+     * Implements: SnakeDriver
+     */
+    
+    //The directions to try, in order, and which way each one goes
+    final private static int[] DIRECTIONS = {SnakeObject.LEFT, SnakeObject.RIGHT, SnakeObject.UP, SnakeObject.DOWN};
+    final private static int[] DX = {-1, 1, 0, 0};
+    final private static int[] DY = {0, 0, -1, 1};
+    
+    //The board's size, and the buffers for searching it, a box each. Box x, y is (x << shift) | y,
+    //so that getting x and y back out of a box on the queue doesn't take a division.
+    private int width = -1, height = -1;
+    private int shift, mask;
+    private int[] seen; //Number of the last search that got to the box
+    private int[] distance; //Moves from the start of that search to the box
+    private int[] queue; //Boxes still to look from, in the order they were got to
+    private int[] bodyMark; //Number of the last decision the box had a part of our own snake in it
+    private int[] freeAt; //For those boxes: how many moves until the snake has moved off it
+    private int search = 0, decision = 0;
+    
+    //The snake being steered, and what it's on, while deciding
+    private BoardStore board;
+    private PickupRegistry registry;
+    
+    //How the last search went: the box it found (or -1) and how many boxes it got to
+    private int found;
+    private int reached;
+    
+    //The path being followed: the boxes from the head to the target, the next one to go to, and
+    //what the target is. The path is kept from tick to tick and only looked for again once it's no
+    //good (the target is gone, or the way is blocked or isn't safe), so most ticks don't search for it.
+    private int[] path;
+    private int pathLength = 0, pathIndex = 0;
+    private int target, targetItem;
+    
+    //This bot's own random numbers, for breaking ties (see GreedyDriver). Without a path to follow, a
+    //snake that always went the same way could end up going round the same loop forever.
+    private GameRandom generator;
+    
+    //When there was nothing to go for, how many more ticks before looking again
+    final private static int IDLE_TICKS = 8;
+    private int idle = 0;
+    
+    //How long it's been since the snake last ate (going by its size), in ticks. A path that's never safe
+    //enough to take can have the snake circling for good (with nothing else changing on the board, the
+    //circling puts its body back in the way each time), so once it's gone HUNGRY_BOXES ticks for every
+    //box on the board without eating, it takes the path anyway, and either eats or dies.
+    final private static int HUNGRY_BOXES = 2;
+    private int lastSize = -1;
+    private int sinceEaten = 0;
+    
+    public PathDriver(GameRandom generator) {
+        /*
+         * Constructor for PathDrivers. The buffers are made once the bot sees the board.
+         *
+         * Parameters: generator - random numbers for this bot alone (see GameRandom.split())
+         * Returns: Constructed PathDriver
+         */
+        this.generator = generator;
+    }
+    
+    /*
+     *
+     * Deciding.
+     *
+     */
+    public int nextDirection(SnakeArena arena, int snake) {
+        /*
+         * Chooses the first move of the shortest safe path to a pickup.
+         *
+         * Parameters:
+         * arena - the arena the snake is in
+         * snake - which snake in the arena
+         * Returns: The direction to go, or SnakeEngine.NO_TURN if nothing is safe
+         */
+        return choose(arena.getSnake(snake), arena.getBoard(), arena.registry);
+    }
+    public int nextDirection(SnakeEngine engine) {
+        /*
+         * Chooses the first move of the shortest safe path to a pickup, for the snake in
+         * a single-snake game. Pass the result to the engine's step().
+         *
+         * Parameters: engine - the game the snake is in
+         * Returns: The direction to go, or SnakeEngine.NO_TURN if nothing is safe
+         */
+        return choose(engine.snake, engine.getBoard(), engine.registry);
+    }
+    private int choose(SnakeObject self, BoardStore board, PickupRegistry registry) {
+        /*
+         * Does the choosing for both kinds of game.
+         *
+         * Parameters:
+         * self - the snake being steered
+         * board - the board it's on
+         * registry - what the pickups do
+         * Returns: The direction to go, or SnakeEngine.NO_TURN if nothing is safe
+         */
+        this.board = board;
+        this.registry = registry;
+        if(board.getWidth() != width || board.getHeight() != height) allocate(board.getWidth(), board.getHeight());
+        markBody(self);
+        int x = self.getHeadX() - 1; //Board locations, not snake locations
+        int y = self.getHeadY() - 1;
+        int back = indexOf(SnakeObject.opposite(self.getDirection()));
+        if(self.getSize() != lastSize) {
+            lastSize = self.getSize();
+            sinceEaten = 0;
+        } else sinceEaten++;
+        boolean hungry = sinceEaten > HUNGRY_BOXES * width * height;
+        
+        //Keep following the path if it's still good, or else look for the nearest pickup worth eating
+        if(!pathIsGood(x, y)) {
+            pathLength = 0;
+            if(idle > 0) idle--;
+            else plan(x, y, back);
+        }
+        int preferred = (pathIndex < pathLength) ? moveTo(x, y, path[pathIndex]) : -1;
+        
+        //Take the path if it's safe. Otherwise forget it, and take the safe way that gets closest to
+        //where it was going (any safe way, if it wasn't going anywhere), or if nothing is safe, the way
+        //with the most room. Ties go to whichever one the coin flips favor.
+        int best = SnakeEngine.NO_TURN, bestRoom = 0;
+        if(preferred >= 0) {
+            if(hungry || isSafe(x, y, preferred, self)) {
+                pathIndex++;
+                return DIRECTIONS[preferred];
+            }
+            best = DIRECTIONS[preferred];
+            bestRoom = reached;
+            pathLength = 0;
+        }
+        int safe = SnakeEngine.NO_TURN, safeDistance = Integer.MAX_VALUE, ties = 0;
+        for(int i = 0; i < DIRECTIONS.length; i++) {
+            if(i == preferred || i == back) continue;
+            if(isSafe(x, y, i, self)) {
+                int distance = (preferred < 0) ? 0 : Math.abs((target >>> shift) - x - DX[i]) + Math.abs((target & mask) - y - DY[i]);
+                if(distance < safeDistance) {
+                    safe = DIRECTIONS[i];
+                    safeDistance = distance;
+                    ties = 1;
+                } else if(distance == safeDistance && generator.nextInt(++ties) == 0) safe = DIRECTIONS[i];
+            } else if(reached > bestRoom) {
+                best = DIRECTIONS[i];
+                bestRoom = reached;
+            }
+        }
+        return (safe != SnakeEngine.NO_TURN) ? safe : best;
+    }
+    private boolean pathIsGood(int x, int y) {
+        /*
+         * Checks whether the path being followed is still worth following: there's more of it, its
+         * target is still there, and the next box on it is next to the head and won't kill us.
+         *
+         * Parameters:
+         * x - x value of the head (a board location)
+         * y - y value of the head
+         * Returns: Whether to keep following it
+         */
+        if(pathIndex >= pathLength) return false;
+        if(board.get(target >>> shift, target & mask) != targetItem) return false;
+        int next = path[pathIndex];
+        return moveTo(x, y, next) >= 0 && isOpen(next >>> shift, next & mask, 1);
+    }
+    private void plan(int x, int y, int back) {
+        /*
+         * Looks for the nearest pickup worth eating, and if there is one, lays out the path there
+         * by walking back from it to the head, one box closer each time.
+         *
+         * Parameters:
+         * x - x value of the head (a board location)
+         * y - y value of the head
+         * back - the index in DIRECTIONS of the way the snake can't go
+         * Returns: Nothing
+         */
+        searchFrom(x, y, back, true, 0);
+        if(found < 0) {
+            idle = IDLE_TICKS;
+            return;
+        }
+        target = found;
+        targetItem = board.get(found >>> shift, found & mask);
+        pathLength = distance[found];
+        pathIndex = 0;
+        int box = found;
+        for(int d = pathLength; d > 0; d--) {
+            path[d - 1] = box;
+            for(int i = 0; i < 4 && d > 1; i++) {
+                int x2 = (box >>> shift) - DX[i], y2 = (box & mask) - DY[i];
+                if(x2 < 0 || y2 < 0 || x2 >= width || y2 >= height) continue;
+                int previous = (x2 << shift) | y2;
+                if(seen[previous] == search && distance[previous] == d - 1) {
+                    box = previous;
+                    break;
+                }
+            }
+        }
+    }
+    private int moveTo(int x, int y, int box) {
+        //Returns: The index in DIRECTIONS of the move from (x, y) into box, or -1 if box isn't next to it
+        int dx = (box >>> shift) - x, dy = (box & mask) - y;
+        for(int i = 0; i < 4; i++) {
+            if(DX[i] == dx && DY[i] == dy) return i;
+        }
+        return -1;
+    }
+    private boolean isSafe(int x, int y, int move, SnakeObject self) {
+        /*
+         * Checks whether a move leaves the snake a way out: from the box it moves to, the head
+         * can get to a box the body will have left by then (and so follow its tail), or to
+         * enough boxes to wander around in until the body moves out of the way, or at least to
+         * as many boxes as there are parts of the snake.
+         *
+         * Parameters:
+         * x - x value of the head (a board location)
+         * y - y value of the head
+         * move - the move, an index into DIRECTIONS
+         * self - the snake
+         * Returns: Whether the move is safe. Either way, reached is how much room it found.
+         */
+        int nextX = x + DX[move], nextY = y + DY[move];
+        if(!isOpen(nextX, nextY, 1)) {
+            reached = 0;
+            return false;
+        }
+        searchFrom(nextX, nextY, -1, false, self.getSize());
+        return found >= 0;
+    }
+    
+    /*
+     *
+     * Searching.
+     *
+     */
+    private void searchFrom(int x, int y, int back, boolean forPickup, int enough) {
+        /*
+         * A breadth-first search out from a box, over the boxes the head could get to in time.
+         * It stops as soon as it finds what it's looking for, and sets found and reached.
+         *
+         * Parameters:
+         * x - x value of the box to start from (a board location)
+         * y - y value of the box
+         * back - the index in DIRECTIONS of the way the snake can't go from the start, or -1
+         * forPickup - true to search from the head for the nearest pickup worth eating, false to
+         *             search from the box one move from now for a way out (a box the body will have left)
+         * enough - when looking for a way out, how many boxes count as one anyway
+         * Returns: Nothing. found is the box it was looking for, or -1 if it ran out of boxes first.
+         */
+        if(++search == Integer.MAX_VALUE) {
+            Arrays.fill(seen, 0);
+            search = 1;
+        }
+        int start = (x << shift) | y;
+        int head = 0, tail = 0;
+        seen[start] = search;
+        distance[start] = forPickup ? 0 : 1;
+        queue[tail++] = start;
+        found = -1;
+        int fallback = -1; //The nearest pickup that's only not worth eating, in case there's nothing better
+        int waitFor = Integer.MAX_VALUE; //The soonest a part of our body that's in the way moves off
+        
+        while(head < tail) {
+            int box = queue[head++];
+            int boxX = box >>> shift, boxY = box & mask;
+            int next = distance[box] + 1;
+            for(int i = 0; i < 4; i++) {
+                if(box == start && i == back) continue;
+                int nextX = boxX + DX[i], nextY = boxY + DY[i];
+                if(nextX < 0 || nextY < 0 || nextX >= width || nextY >= height) continue;
+                int nextBox = (nextX << shift) | nextY;
+                if(seen[nextBox] == search) continue;
+                int item = board.get(nextX, nextY);
+                if(!canEnter(item, nextBox, next)) {
+                    //Part of our own body that hasn't moved off yet. It will, so if there's room enough to
+                    //wander around in until then, that's a way out too.
+                    if(!forPickup && bodyMark[nextBox] == decision && freeAt[nextBox] < waitFor) waitFor = freeAt[nextBox];
+                    if(tail + 1 >= waitFor) {
+                        found = nextBox;
+                        reached = tail;
+                        return;
+                    }
+                    continue;
+                }
+                seen[nextBox] = search;
+                distance[nextBox] = next;
+                queue[tail++] = nextBox;
+                
+                //Is this what we're looking for?
+                if(forPickup) {
+                    if(item >= SnakeEngine.FOOD_ITEM) {
+                        if(registry.get(item).points > 0) found = nextBox;
+                        else if(fallback < 0) fallback = nextBox;
+                    }
+                } else if(bodyMark[nextBox] == decision || tail >= enough || tail + 1 >= waitFor) found = nextBox;
+                if(found >= 0) {
+                    reached = tail;
+                    return;
+                }
+            }
+        }
+        //A pickup that loses points is still better than going round in circles, which is
+        //all there is to do if it's the only one (it won't be replaced until it's eaten)
+        found = fallback;
+        reached = tail;
+    }
+    private boolean isOpen(int x, int y, int moves) {
+        /*
+         * Checks whether the head could be in a box a number of moves from now without dying.
+         *
+         * Parameters:
+         * x - x value of the box (a board location)
+         * y - y value of the box
+         * moves - how many moves from now the head would get there
+         * Returns: Whether it would live
+         */
+        if(x < 0 || y < 0 || x >= width || y >= height) return false;
+        return canEnter(board.get(x, y), (x << shift) | y, moves);
+    }
+    private boolean canEnter(int item, int box, int moves) {
+        //Does the work of isOpen(), for a box whose item has already been looked up
+        if(item == SnakeEngine.NO_ITEM) return true;
+        if(item == SnakeEngine.SNAKE_ITEM || item == SnakeEngine.SNAKEHEAD_ITEM) {
+            //Our own body moves along; anyone else's is just in the way
+            return bodyMark[box] == decision && moves >= freeAt[box];
+        }
+        PickupType type = registry.get(item);
+        return type != null && !type.deadly;
+    }
+    private void markBody(SnakeObject self) {
+        /*
+         * Notes which boxes the snake is in, and how long until it moves off each one. Part i
+         * (0 is the head) moves off after the snake has grown into its size and then moved
+         * as many times as there are parts behind it, plus one more; the board still shows
+         * it during the move that takes the snake off it.
+         *
+         * Parameters: self - the snake
+         * Returns: Nothing
+         */
+        if(++decision == Integer.MAX_VALUE) {
+            Arrays.fill(bodyMark, 0);
+            decision = 1;
+        }
+        int length = self.getLength();
+        int growing = self.getSize() - length;
+        for(int i = 0; i < length; i++) {
+            int part = self.getPart(i);
+            int x = SnakeObject.getX(part) - 1, y = SnakeObject.getY(part) - 1;
+            if(x < 0 || y < 0 || x >= width || y >= height) continue;
+            int box = (x << shift) | y;
+            bodyMark[box] = decision;
+            freeAt[box] = length - i + growing + 1;
+        }
+    }
+    private void allocate(int width, int height) {
+        /*
+         * Makes the buffers for a board of a new size.
+         *
+         * Parameters:
+         * width - the length of the board, walls included
+         * height - the width of the board, walls included
+         * Returns: Nothing
+         */
+        this.width = width;
+        this.height = height;
+        shift = 32 - Integer.numberOfLeadingZeros(Math.max(height - 1, 1));
+        mask = (1 << shift) - 1;
+        int boxes = width << shift;
+        seen = new int[boxes];
+        distance = new int[boxes];
+        path = new int[boxes];
+        queue = new int[boxes];
+        bodyMark = new int[boxes];
+        freeAt = new int[boxes];
+        search = 0;
+        decision = 0;
+        pathLength = 0;
+    }
+    private static int indexOf(int direction) {
+        //Returns: Where a direction is in DIRECTIONS
+        for(int i = 0; i < DIRECTIONS.length; i++) {
+            if(DIRECTIONS[i] == direction) return i;
+        }
+        return 0;
+    }
+}
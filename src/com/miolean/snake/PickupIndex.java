@@ -0,0 +1,125 @@
+/*
+ * Miles Krusniak
+ * PickupIndex.java (Snake)
+ *
+ * PickupIndex is a list of every pickup on the board: where it is and what
+ * kind it is. With it, chaos mode can make a random pickup decay without
+ * searching the board for one, and the game can tell how many pickups (of
+ * each kind) there are without keeping a separate count.
+ */
+
+package com.miolean.snake;
+
+public class PickupIndex {
+    /*
+     * A dense list of the pickups on the board, with a count of each kind.
+     *
+     * Extends: Nothing
+     * Implements: Nothing
+     */
+    
+    //The pickups are kept packed together at the front of the arrays, in no particular order
+    private int[] locations = new int[32]; //Packed like SnakeObject's locations
+    private int[] types = new int[32]; //The pickup item at each location
+    private int count = 0;
+    
+    //How many of each kind of pickup there are, indexed by item
+    private int[] typeCounts;
+    
+    public PickupIndex(int maxItem) {
+        /*
+         * Constructor for PickupIndexes. The index starts out empty.
+         *
+         * Parameters: maxItem - the largest pickup item there is
+         * Returns: Constructed PickupIndex
+         */
+        typeCounts = new int[maxItem + 1];
+    }
+    
+    public void add(int x, int y, int type) {
+        /*
+         * Adds a pickup to the index.
+         *
+         * Parameters:
+         * x - x value of the board location
+         * y - y value of the board location
+         * type - the pickup item
+         * Returns: Nothing
+         */
+        if(count == locations.length) {
+            locations = java.util.Arrays.copyOf(locations, count * 2);
+            types = java.util.Arrays.copyOf(types, count * 2);
+        }
+        locations[count] = SnakeObject.pack(x, y);
+        types[count] = type;
+        typeCounts[type]++;
+        count++;
+    }
+    public void remove(int x, int y) {
+        /*
+         * Takes the pickup at (x, y) out of the index, if there is one. There are only ever
+         * a handful of pickups, so we just look through them for it.
+         *
+         * Parameters:
+         * x - x value of the board location
+         * y - y value of the board location
+         * Returns: Nothing
+         */
+        int location = SnakeObject.pack(x, y);
+        for(int i = 0; i < count; i++) {
+            if(locations[i] == location) {
+                removeAt(i);
+                return;
+            }
+        }
+    }
+    private void removeAt(int i) {
+        /*
+         * Takes the i-th pickup out of the index. The last pickup takes its place so there are no gaps.
+         *
+         * Parameters: i - which pickup to remove
+         * Returns: Nothing
+         */
+        typeCounts[types[i]]--;
+        count--;
+        locations[i] = locations[count];
+        types[i] = types[count];
+    }
+    public void clear() {
+        //Takes every pickup out of the index (e.g. when the board is reset)
+        count = 0;
+        java.util.Arrays.fill(typeCounts, 0);
+    }
+    public int pick(GameRandom generator) {
+        /*
+         * Chooses a pickup at random (every pickup equally likely). It stays in the index.
+         *
+         * Parameters: generator - the random number generator to use
+         * Returns: Which pickup was chosen (for getLocation() and getType()), or -1 if there are none
+         */
+        if(count == 0) return -1;
+        return generator.nextInt(count);
+    }
+    
+    /*
+     *
+     * Accessor methods.
+     *
+     */
+    public int size() {
+        //Returns: The number of pickups on the board
+        return count;
+    }
+    public int count(int type) {
+        //Returns: The number of pickups of one kind on the board
+        return typeCounts[type];
+    }
+    public int getLocation(int i) {
+        //Returns: The packed location of the i-th pickup
+        return locations[i];
+    }
+    public int getType(int i) {
+        //Returns: The pickup item of the i-th pickup
+        return types[i];
+    }
+}
@@ -0,0 +1,321 @@
+/*
+ * Miles Krusniak
+ * PickupRegistry.java (Snake)
+ *
+ * PickupRegistry holds every kind of pickup in the game (see PickupType)
+ * along with the chaos mode settings, and chooses which kind a new pickup
+ * should be. The kinds can come from defaults() - the pickups the game has
+ * always had - or from a config file, so adding a pickup or changing what
+ * one does doesn't need any code changes.
+ *
+ * Config files are properties files. Each line sets one thing about one
+ * pickup, as pickup.<key>.<setting>=<value>; see pickups.properties for
+ * all of the settings. Pickups not mentioned keep their defaults.
+ */
+
+package com.miolean.snake;
+
+import java.io.*;
+import java.util.*;
+
+public class PickupRegistry {
+    /*
+     * The kinds of pickup, and how to choose one at random.
+     *
+     * Extends: Nothing
+     * Implements: Nothing
+     */
+    
+    //The kinds of pickup, indexed by item. Items below FOOD_ITEM are never pickups.
+    private PickupType[] types = new PickupType[SnakeEngine.FOOD_ITEM];
+    
+    //The highest item a pickup may be. Keeping items small means a board can be stored compactly.
+    final static int MAX_ITEM = 127;
+    
+    //Chaos mode settings: the chance (every CHAOS_MILLIS of game time) of a pickup showing up or decaying on
+    //its own, and the most pickups there may be before they stop showing up.
+    double chaosSpawnChance = 0.05;
+    double chaosDecayChance = 0.05;
+    int maxChaosPickups = 25;
+    
+    //The tables used to choose a kind of pickup, one for each mode. They are made again
+    //(the next time they're needed) whenever a pickup is turned on or off.
+    private AliasTable normalTable, chaosTable;
+    private volatile boolean stale = true;
+    
+    public static PickupRegistry defaults() {
+        /*
+         * Makes a registry of the pickups that the game has always had. The
+         * weights add up to 100, so they're also percentages.
+         *
+         * Parameters: None
+         * Returns: The new PickupRegistry
+         */
+        PickupRegistry registry = new PickupRegistry();
+        PickupType type;
+        //Parameters are item, key, name, color, points, speed change, growth, weight, chaos weight
+        registry.add(new PickupType(SnakeEngine.FOOD_ITEM, "food", "Food", 0xFFC800, 4, -10, 3, 49, 39));
+        
+        type = new PickupType(SnakeEngine.SPEED_ITEM, "speed", "Speed item", 0x00FFFF, 5, -40, 2, 10, 10);
+        type.description = "Cyan: Speeds the snake up";
+        type.toggleable = true;
+        registry.add(type);
+        
+        type = new PickupType(SnakeEngine.SLOW_ITEM, "slow", "Slow item", 0xFF00FF, 5, 40, 2, 10, 10);
+        type.description = "Magenta: Slows the snake down";
+        type.toggleable = true;
+        registry.add(type);
+        
+        type = new PickupType(SnakeEngine.GROWTH_ITEM, "growth", "Growth item", 0x32FF64, 7, -10, 7, 10, 10);
+        type.description = "Green: Adds six segments to the snake";
+        type.toggleable = true;
+        registry.add(type);
+        
+        type = new PickupType(SnakeEngine.POINTS_ITEM, "points", "Points item", 0xC87832, 20, -5, 2, 10, 10);
+        type.description = "Brown: Worth lots of points";
+        type.toggleable = true;
+        registry.add(type);
+        
+        type = new PickupType(SnakeEngine.LOUSY_ITEM, "lousy", "Loss item", 0x404040, -15, 40, 1, 5, 5);
+        type.description = "Dark gray: Slows snake down, worth negative points";
+        type.toggleable = true;
+        registry.add(type);
+        
+        type = new PickupType(SnakeEngine.AWESOME_ITEM, "awesome", "Boost item", 0xFFFFFF, 20, -30, 4, 6, 6);
+        type.description = "White: Speeds snake up, worth lots of points";
+        type.toggleable = true;
+        registry.add(type);
+        
+        type = new PickupType(SnakeEngine.DEATH_ITEM, "death", "Death item", 0xFF0000, 0, 0, 0, 0, 10);
+        type.description = "Red: Kills the snake, chaos mode only";
+        type.deadly = true;
+        type.toggleable = true;
+        registry.add(type);
+        return registry;
+    }
+    public PickupRegistry copy() {
+        /*
+         * Makes a registry with the same pickups and settings as this one, that can be turned
+         * on and off separately. Registries aren't safe to share between threads, so each
+         * game running on its own thread needs its own copy.
+         *
+         * Parameters: None
+         * Returns: The new PickupRegistry
+         */
+        PickupRegistry registry = new PickupRegistry();
+        registry.chaosSpawnChance = chaosSpawnChance;
+        registry.chaosDecayChance = chaosDecayChance;
+        registry.maxChaosPickups = maxChaosPickups;
+        for(PickupType type : getTypes()) {
+            PickupType copy = new PickupType(type.item, type.key, type.name, type.color, type.points, type.speedChange,
+                type.extendBy, type.weight, type.chaosWeight);
+            copy.description = type.description;
+            copy.deadly = type.deadly;
+            copy.toggleable = type.toggleable;
+            copy.enabled = type.enabled;
+            registry.add(copy);
+        }
+        return registry;
+    }
+    public static PickupRegistry load(File file) throws IOException {
+        /*
+         * Makes a registry from a config file. It starts from the defaults, and the file
+         * changes (or adds to) them.
+         *
+         * Parameters: file - the config file
+         * Returns: The new PickupRegistry
+         */
+        Properties config = new Properties();
+        InputStream stream = new FileInputStream(file);
+        try {
+            config.load(stream);
+        } finally {
+            stream.close();
+        }
+        return load(config, file.toString());
+    }
+    static PickupRegistry load(Properties config, String source) throws IOException {
+        /*
+         * Makes a registry from settings that have already been read (from a config
+         * file, or from a replay - see toProperties()).
+         *
+         * Parameters:
+         * config - the settings, as they would be in a config file
+         * source - where they came from, for error messages
+         * Returns: The new PickupRegistry
+         */
+        PickupRegistry registry = defaults();
+        try {
+            registry.chaosSpawnChance = Double.parseDouble(config.getProperty("chaos.spawnChance", "" + registry.chaosSpawnChance));
+            registry.chaosDecayChance = Double.parseDouble(config.getProperty("chaos.decayChance", "" + registry.chaosDecayChance));
+            registry.maxChaosPickups = Integer.parseInt(config.getProperty("chaos.maxPickups", "" + registry.maxChaosPickups));
+            
+            //Find every pickup the file mentions (the part between "pickup." and the next ".")
+            Set<String> keys = new TreeSet<String>();
+            for(String name : config.stringPropertyNames()) {
+                if(name.startsWith("pickup.") && name.indexOf('.', 7) > 0) keys.add(name.substring(7, name.indexOf('.', 7)));
+            }
+            
+            for(String key : keys) {
+                String prefix = "pickup." + key + ".";
+                PickupType type = registry.find(key);
+                if(type == null) {
+                    //A new kind of pickup. Unless the file says which item it is, it gets the next one free.
+                    int item = Integer.parseInt(config.getProperty(prefix + "item", "" + registry.types.length));
+                    type = new PickupType(item, key, key, 0xFFFFFF, 0, 0, 0, 0, 0);
+                    registry.add(type);
+                }
+                type.name = config.getProperty(prefix + "name", type.name);
+                type.description = config.getProperty(prefix + "description", type.description);
+                type.color = parseColor(config.getProperty(prefix + "color", String.format("#%06X", type.color)));
+                type.points = Integer.parseInt(config.getProperty(prefix + "points", "" + type.points));
+                type.speedChange = Integer.parseInt(config.getProperty(prefix + "speed", "" + type.speedChange));
+                type.extendBy = Integer.parseInt(config.getProperty(prefix + "extend", "" + type.extendBy));
+                type.deadly = Boolean.parseBoolean(config.getProperty(prefix + "deadly", "" + type.deadly));
+                type.weight = Double.parseDouble(config.getProperty(prefix + "weight", "" + type.weight));
+                type.chaosWeight = Double.parseDouble(config.getProperty(prefix + "chaosWeight", "" + type.chaosWeight));
+                type.toggleable = Boolean.parseBoolean(config.getProperty(prefix + "toggle", "" + type.toggleable));
+                type.enabled = Boolean.parseBoolean(config.getProperty(prefix + "enabled", "" + type.enabled));
+            }
+        }
+        catch(IllegalArgumentException e) {
+            throw new IOException("Bad setting in " + source + ": " + e.getMessage());
+        }
+        return registry;
+    }
+    Properties toProperties() {
+        /*
+         * Writes every setting of every pickup down the way a config file would, so that
+         * load() can make the same registry again - even one that started from a config file
+         * that has since changed or gone away. Replays are saved with one of these.
+         *
+         * Parameters: None
+         * Returns: The settings
+         */
+        Properties config = new Properties();
+        config.setProperty("chaos.spawnChance", "" + chaosSpawnChance);
+        config.setProperty("chaos.decayChance", "" + chaosDecayChance);
+        config.setProperty("chaos.maxPickups", "" + maxChaosPickups);
+        for(PickupType type : getTypes()) {
+            String prefix = "pickup." + type.key + ".";
+            config.setProperty(prefix + "item", "" + type.item);
+            config.setProperty(prefix + "name", type.name);
+            config.setProperty(prefix + "description", type.description);
+            config.setProperty(prefix + "color", String.format("#%06X", type.color));
+            config.setProperty(prefix + "points", "" + type.points);
+            config.setProperty(prefix + "speed", "" + type.speedChange);
+            config.setProperty(prefix + "extend", "" + type.extendBy);
+            config.setProperty(prefix + "deadly", "" + type.deadly);
+            config.setProperty(prefix + "weight", "" + type.weight);
+            config.setProperty(prefix + "chaosWeight", "" + type.chaosWeight);
+            config.setProperty(prefix + "toggle", "" + type.toggleable);
+            config.setProperty(prefix + "enabled", "" + type.enabled);
+        }
+        return config;
+    }
+    
+    private static int parseColor(String color) {
+        //Returns: A color written as #RRGGBB (the # is optional), as 0xRRGGBB
+        if(color.startsWith("#")) color = color.substring(1);
+        return Integer.parseInt(color, 16) & 0xFFFFFF;
+    }
+    public void add(PickupType type) {
+        /*
+         * Adds a kind of pickup, replacing whatever kind had the same item before.
+         *
+         * Parameters: type - the new kind of pickup
+         * Returns: Nothing
+         */
+        if(type.item < SnakeEngine.FOOD_ITEM || type.item > MAX_ITEM) {
+            throw new IllegalArgumentException("pickup " + type.key + " can't be item " + type.item);
+        }
+        if(type.item >= types.length) types = Arrays.copyOf(types, type.item + 1);
+        types[type.item] = type;
+        stale = true;
+    }
+    public void setEnabled(int item, boolean enabled) {
+        /*
+         * Turns a kind of pickup on or off. Pickups of that kind already on the board stay there.
+         *
+         * Parameters:
+         * item - which kind of pickup
+         * enabled - whether new pickups may be of that kind
+         * Returns: Nothing
+         */
+        types[item].enabled = enabled;
+        stale = true;
+    }
+    public int pick(GameRandom generator, boolean chaos) {
+        /*
+         * Chooses the kind of a new pickup at random, according to the weights for the mode
+         * we're in. Kinds that are turned off are left out entirely.
+         *
+         * Parameters:
+         * generator - the random number generator to use
+         * chaos - whether the game is in chaos mode
+         * Returns: The item of the chosen pickup, or -1 if every kind is turned off
+         */
+        if(stale) rebuild();
+        if(chaos) return chaosTable.pick(generator);
+        return normalTable.pick(generator);
+    }
+    private void rebuild() {
+        /*
+         * Makes the tables used to choose a kind of pickup again, e.g. after one was turned on or off.
+         *
+         * Parameters: None
+         * Returns: Nothing
+         */
+        stale = false; //First, so that a change made while we're at it makes us do it again next time
+        int[] items = new int[types.length];
+        double[] weights = new double[types.length];
+        double[] chaosWeights = new double[types.length];
+        for(int i = 0; i < types.length; i++) {
+            items[i] = i;
+            if(types[i] != null && types[i].enabled) {
+                weights[i] = types[i].weight;
+                chaosWeights[i] = types[i].chaosWeight;
+            }
+        }
+        normalTable = new AliasTable(items, weights);
+        chaosTable = new AliasTable(items, chaosWeights);
+    }
+    
+    /*
+     *
+     * Accessor methods.
+     *
+     */
+    public PickupType get(int item) {
+        //Returns: The kind of pickup that is item, or null if it isn't a pickup
+        if(item < 0 || item >= types.length) return null;
+        return types[item];
+    }
+    public PickupType find(String key) {
+        //Returns: The kind of pickup that goes by key in config files, or null if there isn't one
+        for(PickupType type : types) {
+            if(type != null && type.key.equals(key)) return type;
+        }
+        return null;
+    }
+    public List<PickupType> getTypes() {
+        //Returns: Every kind of pickup, in order of item
+        List<PickupType> list = new ArrayList<PickupType>();
+        for(PickupType type : types) {
+            if(type != null) list.add(type);
+        }
+        return list;
+    }
+    public long getEnabledMask() {
+        //Returns: One bit for each kind of pickup that is turned on (bit 2 for item 2, and so on, up to item 63)
+        long mask = 0;
+        for(PickupType type : types) {
+            if(type != null && type.enabled && type.item < 64) mask |= 1L << type.item;
+        }
+        return mask;
+    }
+    public int getMaxItem() {
+        //Returns: The highest item that any pickup is
+        return types.length - 1;
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Miles Krusniak
+ * PickupType.java (Snake)
+ *
+ * A PickupType describes one kind of pickup: what it looks like, what it
+ * does to the snake when eaten, and how often it shows up. All of the
+ * kinds are kept in a PickupRegistry.
+ */
+
+package com.miolean.snake;
+
+public class PickupType {
+    /*
+     * One kind of pickup and its effects.
+     *
+     * Extends: Nothing
+     * Implements: Nothing
+     */
+    
+    //What it is. Not private because these are just settings; the registry fills them in.
+    int item; //The item on the board (FOOD_ITEM or higher)
+    String key; //The name it goes by in the pickup config file
+    String name; //The name in the Item menu
+    String description; //The tooltip in the Item menu
+    int color; //The color it's drawn in, as 0xRRGGBB
+    
+    //What it does when the snake eats it
+    int points; //Points gained (or lost)
+    int speedChange; //Added to the snake's speed, which is milliseconds per tick (so negative is faster)
+    int extendBy; //How many units the snake grows
+    boolean deadly; //Kills the snake instead
+    
+    //How often it shows up, relative to the other pickups, in normal and in chaos mode
+    double weight;
+    double chaosWeight;
+    
+    //Whether it can be turned on and off from the Item menu, and whether it's on.
+    //Enabled is volatile because the menu changes it while the game is running.
+    boolean toggleable;
+    volatile boolean enabled = true;
+    
+    public PickupType(int item, String key, String name, int color, int points, int speedChange, int extendBy,
+        double weight, double chaosWeight) {
+        /*
+         * Constructor for PickupTypes. The pickup starts out enabled, not deadly,
+         * and not in the Item menu.
+         *
+         * Parameters:
+         * item - the item on the board
+         * key - the name it goes by in the pickup config file
+         * name - the name in the Item menu
+         * color - the color it's drawn in, as 0xRRGGBB
+         * points - points gained when eaten
+         * speedChange - change to the snake's speed (milliseconds per tick) when eaten
+         * extendBy - units the snake grows when it's eaten
+         * weight - how often it shows up in normal mode
+         * chaosWeight - how often it shows up in chaos mode
+         * Returns: Constructed PickupType
+         */
+        this.item = item;
+        this.key = key;
+        this.name = name;
+        this.description = name;
+        this.color = color;
+        this.points = points;
+        this.speedChange = speedChange;
+        this.extendBy = extendBy;
+        this.weight = weight;
+        this.chaosWeight = chaosWeight;
+    }
+}
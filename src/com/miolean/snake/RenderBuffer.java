@@ -0,0 +1,94 @@
+/*
+ * Miles Krusniak
+ * RenderBuffer.java (Snake)
+ *
+ * RenderBuffer hands RenderStates from the game thread to the window
+ * without either of them waiting on the other. There are three states: the
+ * one the game thread is filling in, the one the window is drawing, and the
+ * newest one handed over that the window hasn't picked up yet. Handing one
+ * over or picking one up is a single atomic swap, so the game can tick at
+ * whatever rate it likes and the window draws at its own; if the game
+ * hands over a few before the window looks, the window just gets the
+ * newest of them.
+ */
+
+package com.miolean.snake;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+public class RenderBuffer {
+    /*
+     * A triple buffer of RenderStates, with one thread filling them and one drawing them.
+     *
+     * Extends: Nothing
+     * Implements: Nothing
+     */
+    
+    //The newest state handed over. The other two are back (only the game thread touches it)
+    //and front (only the window touches it), and the three only ever trade places.
+    final private AtomicReference<RenderState> ready;
+    private RenderState back;
+    private RenderState front;
+    
+    //The game thread's count of states handed over
+    private long frames = 0;
+    
+    public RenderBuffer(int viewWidth, int viewHeight) {
+        /*
+         * Constructor for RenderBuffers. Until the first state is handed over, the window gets an empty board.
+         *
+         * Parameters:
+         * viewWidth - number of boxes of view length
+         * viewHeight - number of boxes of view width
+         * Returns: Constructed RenderBuffer
+         */
+        ready = new AtomicReference<RenderState>(new RenderState(viewWidth, viewHeight));
+        back = new RenderState(viewWidth, viewHeight);
+        front = new RenderState(viewWidth, viewHeight);
+    }
+    
+    /*
+     *
+     * The game thread's end.
+     *
+     */
+    public RenderState getBack() {
+        //Returns: The state to fill in for the next frame. It may hold any old frame, so all of it should be filled in.
+        return back;
+    }
+    public void publish() {
+        /*
+         * Hands the filled-in state over to the window, and takes whichever one
+         * the window isn't using to fill in next time.
+         *
+         * Parameters: None
+         * Returns: Nothing
+         */
+        back.frame = ++frames;
+        back = ready.getAndSet(back);
+    }
+    
+    /*
+     *
+     * The window's end.
+     *
+     */
+    public RenderState getFront() {
+        /*
+         * Picks up the newest state handed over, if there's one the window hasn't seen,
+         * giving back the one it was drawing.
+         *
+         * Parameters: None
+         * Returns: The newest state (the same one as last time, if nothing new was handed over)
+         */
+        while(true) {
+            RenderState newest = ready.get();
+            if(newest.frame <= front.frame) return front;
+            if(ready.compareAndSet(newest, front)) {
+                front = newest;
+                return front;
+            }
+            //The game thread swapped in a newer one just then; try again
+        }
+    }
+}
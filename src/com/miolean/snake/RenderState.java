@@ -0,0 +1,70 @@
+/*
+ * Miles Krusniak
+ * RenderState.java (Snake)
+ *
+ * A RenderState is everything the window shows about the game at one
+ * moment: the items in the part of the board in view, and the numbers and
+ * text under it. The game thread fills one in after each tick and hands it
+ * over through a RenderBuffer, and the window draws from it, so the window
+ * never has to look at the engine (which the game thread may be changing).
+ *
+ * Nothing changes a RenderState once it has been handed over, until the
+ * window hands it back (see RenderBuffer), so the window can read it
+ * without any locking.
+ */
+
+package com.miolean.snake;
+
+public class RenderState {
+    /*
+     * One frame's worth of the game, as the window draws it.
+     *
+     * Extends: Nothing
+     * Implements: Nothing
+     */
+    
+    //Which frame this is: every state handed over has a higher number than the one before.
+    //Volatile because the window checks it on a state that the game thread may have just taken back.
+    volatile long frame = 0;
+    //The tick the game was on
+    long tick = 0;
+    
+    //The part of the board in view, and the item in each box of it, row by row
+    int viewX = 0, viewY = 0;
+    final int viewWidth, viewHeight;
+    final int[] items;
+    
+    //Where the snake's head is and where it goes next, in the view's boxes. Between moves, the window
+    //slides the head into the next box (see BoardCanvas.setLead()), so it glides along instead of
+    //jumping a box at a time however slow it is. It gets there period milliseconds after tickNanos
+    //(System.nanoTime() when it got where it is). moving is false if it isn't going anywhere.
+    int headX = 0, headY = 0, nextX = 0, nextY = 0;
+    long tickNanos = 0;
+    int period = 0;
+    boolean moving = false;
+    
+    //The rest of what's shown
+    int points = 0, speed = 0, size = 0;
+    boolean chaos = false;
+    boolean dead = false;
+    String info = "";
+    
+    public RenderState(int viewWidth, int viewHeight) {
+        /*
+         * Constructor for RenderStates. It starts out as an empty board.
+         *
+         * Parameters:
+         * viewWidth - number of boxes of view length
+         * viewHeight - number of boxes of view width
+         * Returns: Constructed RenderState
+         */
+        this.viewWidth = viewWidth;
+        this.viewHeight = viewHeight;
+        items = new int[viewWidth * viewHeight];
+    }
+    
+    public int getItem(int x, int y) {
+        //Returns: The item in the box (x, y) of the view (not of the whole board)
+        return items[y * viewWidth + x];
+    }
+}
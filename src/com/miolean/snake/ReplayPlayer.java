@@ -0,0 +1,219 @@
+/*
+ * Miles Krusniak
+ * ReplayPlayer.java (Snake)
+ *
+ * A ReplayPlayer plays back a game written down by a ReplayRecorder. It
+ * makes a SnakeEngine just like the one that was played, with its random
+ * number generator where it was, and then steps it, making each recorded
+ * change on the tick it was made on. Nothing waits between ticks, so a game
+ * plays back thousands of times faster than it was played.
+ *
+ * Seeking to an earlier tick starts the game over and plays forward to it,
+ * which is fast enough that there's no need to keep anything from the way.
+ */
+
+package com.miolean.snake;
+
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+public class ReplayPlayer {
+    /*
+     * Plays back a replay.
+     *
+     * Extends: Nothing
+     * Implements: Nothing
+     */
+    
+    //How the game started out (see ReplayRecorder for the file format)
+    private int width, height;
+    private long seed, gamma;
+    private boolean chaos;
+    private PickupRegistry registry;
+    
+    //Every event, in order: the tick it happened on, and type | value << 3
+    private long[] eventTicks = new long[64];
+    private long[] eventCodes = new long[64];
+    private int eventCount = 0;
+    
+    //How the game ended, if it did
+    private boolean finished = false;
+    private long endTick;
+    private int endPoints, endSize;
+    
+    //The game being played back, the next event to make, and how long the game
+    //has taken so far in game time (the sum of the snake's speed over every tick)
+    private SnakeEngine engine;
+    private int nextEvent;
+    private long gameMillis;
+    
+    public ReplayPlayer(File file) throws IOException {
+        /*
+         * Constructor for ReplayPlayers. Reads the whole replay, and gets ready to play it from the start.
+         *
+         * Parameters: file - the replay
+         * Returns: Constructed ReplayPlayer
+         */
+        ByteBuffer in;
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            in = ByteBuffer.allocate((int) channel.size());
+            while(in.hasRemaining() && channel.read(in) >= 0) {
+            }
+            in.flip();
+        } finally {
+            channel.close();
+        }
+        
+        try {
+            for(byte b : ReplayRecorder.MAGIC) {
+                if(in.get() != b) throw new IOException(file + " isn't a replay");
+            }
+            if(in.get() != ReplayRecorder.VERSION) throw new IOException(file + " is from a different version of the game");
+            width = (int) ReplayRecorder.getVarint(in);
+            height = (int) ReplayRecorder.getVarint(in);
+            seed = in.getLong();
+            gamma = in.getLong();
+            chaos = in.get() != 0;
+            byte[] settings = new byte[(int) ReplayRecorder.getVarint(in)];
+            in.get(settings);
+            Properties config = new Properties();
+            config.load(new ByteArrayInputStream(settings));
+            registry = PickupRegistry.load(config, file.toString());
+        }
+        catch(BufferUnderflowException e) {
+            throw new IOException(file + " is cut off before the game starts");
+        }
+        
+        //The events. If the file is cut off partway through one, that one is lost,
+        //and the replay ends wherever the game was by then.
+        try {
+            long tick = 0;
+            while(in.hasRemaining()) {
+                tick += ReplayRecorder.getVarint(in);
+                long code = ReplayRecorder.getVarint(in);
+                if((code & 7) == ReplayRecorder.END) {
+                    endTick = ReplayRecorder.getVarint(in);
+                    endPoints = ReplayRecorder.unzigzag((int) ReplayRecorder.getVarint(in));
+                    endSize = (int) ReplayRecorder.getVarint(in);
+                    finished = true;
+                    break;
+                }
+                if(eventCount == eventTicks.length) {
+                    eventTicks = Arrays.copyOf(eventTicks, eventCount * 2);
+                    eventCodes = Arrays.copyOf(eventCodes, eventCount * 2);
+                }
+                eventTicks[eventCount] = tick;
+                eventCodes[eventCount] = code;
+                eventCount++;
+            }
+        }
+        catch(BufferUnderflowException e) {
+        }
+        restart();
+    }
+    
+    /*
+     *
+     * Playing back.
+     *
+     */
+    public void restart() {
+        /*
+         * Goes back to the start of the game.
+         *
+         * Parameters: None
+         * Returns: Nothing
+         */
+        PickupRegistry fresh = registry.copy(); //The game may turn pickups on and off
+        engine = new SnakeEngine(width, height, new GameRandom(seed, gamma), fresh);
+        engine.chaosMode = chaos;
+        nextEvent = 0;
+        gameMillis = 0;
+    }
+    public void seek(long tick) {
+        /*
+         * Plays the game up to a tick: that many ticks in, with everything the player did
+         * before the next one done. Stops early if the snake dies before then.
+         *
+         * Parameters: tick - the tick to go to
+         * Returns: Nothing
+         */
+        if(tick < engine.getTick()) restart();
+        while(true) {
+            //Make every change that was made before this tick
+            while(nextEvent < eventCount && eventTicks[nextEvent] <= engine.getTick()) {
+                apply(eventCodes[nextEvent]);
+                nextEvent++;
+            }
+            if(engine.getTick() >= tick || engine.isDead()) return;
+            if(finished && engine.getTick() >= endTick) return; //It was left there (reset before the snake died)
+            gameMillis += engine.speed;
+            engine.step(SnakeEngine.NO_TURN);
+        }
+    }
+    public void playToEnd() {
+        /*
+         * Plays the game through to where the replay ends.
+         *
+         * Parameters: None
+         * Returns: Nothing
+         */
+        seek(Long.MAX_VALUE);
+    }
+    private void apply(long code) {
+        /*
+         * Makes one recorded change to the game. Starting and pausing don't change the game
+         * itself (only when its ticks happen), so there's nothing to do for those.
+         *
+         * Parameters: code - the event, as type | value << 3
+         * Returns: Nothing
+         */
+        int value = (int) (code >>> 3);
+        switch((int) (code & 7)) {
+            case ReplayRecorder.TURN: engine.turn(value); break;
+            case ReplayRecorder.CHAOS: engine.setChaosMode(value != 0); break;
+            case ReplayRecorder.PICKUP: engine.setPickupEnabled(value >>> 1, (value & 1) != 0); break;
+            case ReplayRecorder.BONUS: engine.addBonus(ReplayRecorder.unzigzag(value)); break;
+            default: break;
+        }
+    }
+    
+    /*
+     *
+     * Accessor methods.
+     *
+     */
+    public SnakeEngine getEngine() {
+        //Returns: The game being played back, as it stands
+        return engine;
+    }
+    public long getGameMillis() {
+        //Returns: How long the game has taken so far, in milliseconds of game time (pauses left out)
+        return gameMillis;
+    }
+    public int getEventCount() {
+        //Returns: The number of changes the player made during the game
+        return eventCount;
+    }
+    public boolean isFinished() {
+        //Returns: Whether the replay says how the game ended (it doesn't if it was cut off)
+        return finished;
+    }
+    public long getEndTick() {
+        //Returns: The tick the game ended on, if isFinished()
+        return endTick;
+    }
+    public int getEndPoints() {
+        //Returns: The final score, if isFinished()
+        return endPoints;
+    }
+    public int getEndSize() {
+        //Returns: The snake's final size, if isFinished()
+        return endSize;
+    }
+}
@@ -0,0 +1,355 @@
+/*
+ * Miles Krusniak
+ * ReplayRecorder.java (Snake)
+ *
+ * A ReplayRecorder writes a game down as it's played, so that a
+ * ReplayPlayer can play it again later exactly as it happened. Since all of
+ * the randomness in a game comes from its GameRandom, a replay only needs the
+ * state of the generator when the game started and every change the player
+ * made to the game along the way (turns, chaos mode, pickups on and off),
+ * along with the tick it was made on. That's a few bytes for each keypress.
+ *
+ * Recording never waits on the disk, so the game never stutters for it: the
+ * events go in a buffer, and full buffers are handed to a writer thread (one
+ * for all of them), which opens the file, writes them out and closes it
+ * again when the game is over. awaitWrites() waits for it to catch up.
+ *
+ * File format (all numbers are varints - see putVarint() - unless they say otherwise):
+ *   "SNKR", version (one byte)
+ *   board width, board height
+ *   generator seed, generator gamma (eight bytes each)
+ *   chaos mode at the start (one byte)
+ *   length of the pickup settings, then the settings as a properties file
+ *   events, each one ticks since the last event then type | value << 3
+ *   the END event, followed by the final tick, points (zigzag) and size
+ * A game that was never finished (say the program crashed) just has no END.
+ */
+
+package com.miolean.snake;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.*;
+
+public class ReplayRecorder {
+    /*
+     * Writes a replay of one game.
+     *
+     * Extends: Nothing
+     * Implements: Nothing
+     */
+    
+    //The file format. Not private because ReplayPlayer reads it.
+    final static byte[] MAGIC = {'S', 'N', 'K', 'R'};
+    final static int VERSION = 2; //1 was before chaos mode ran on game time
+    final static int TURN = 0; //value is the direction
+    final static int CHAOS = 1; //value is 1 for on, 0 for off
+    final static int PICKUP = 2; //value is item << 1 | (1 for on, 0 for off)
+    final static int START = 3; //the player pressed start; no value
+    final static int PAUSE = 4; //value is 1 for paused, 0 for resumed
+    final static int BONUS = 5; //value is the points, zigzagged
+    final static int END = 6; //no value
+    
+    //Events are put in the buffer and only handed to the writer when it fills up (or the game ends),
+    //so recording a turn is hardly more work than making it. closed is set once the last of it is handed over.
+    final private static int BUFFER_SIZE = 8192;
+    private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private long lastTick = 0;
+    private boolean closed = false;
+    private File file;
+    
+    //The writer thread, and what's waiting for it. Only the writer touches channel and broken.
+    private static BlockingQueue<Chunk> queue = new LinkedBlockingQueue<Chunk>();
+    private static Thread writer;
+    private FileChannel channel;
+    private boolean broken = false; //The file couldn't be written, so the rest of the replay is dropped
+    private static class Chunk {
+        ReplayRecorder recorder; //Whose file it goes in, or null for a chunk that's only waited on
+        ByteBuffer bytes; //What to write, or null
+        boolean close, delete; //Close the file afterwards (and delete it)
+        CountDownLatch done; //Counted down once the writer gets past it, or null
+        
+        Chunk(ReplayRecorder recorder, ByteBuffer bytes, boolean close, boolean delete) {
+            this.recorder = recorder;
+            this.bytes = bytes;
+            this.close = close;
+            this.delete = delete;
+        }
+    }
+    
+    public ReplayRecorder(File file) {
+        /*
+         * Constructor for ReplayRecorders. Nothing is written until begin(), and the file
+         * (and its folder, if that isn't there either) is made by the writer thread.
+         *
+         * Parameters: file - where to write the replay
+         * Returns: Constructed ReplayRecorder
+         */
+        this.file = file;
+    }
+    
+    /*
+     *
+     * Writing the game down.
+     *
+     */
+    synchronized void begin(SnakeEngine engine) throws IOException {
+        /*
+         * Writes down how the game starts out. The engine calls this (see
+         * SnakeEngine.startRecording()), while nothing else can change it.
+         *
+         * Parameters: engine - the game, just reset
+         * Returns: Nothing
+         */
+        ByteArrayOutputStream settings = new ByteArrayOutputStream();
+        engine.registry.toProperties().store(settings, null);
+        byte[] bytes = settings.toByteArray();
+        
+        //The settings can be any length, so the header gets a buffer of its own
+        ByteBuffer header = ByteBuffer.allocate(64 + bytes.length);
+        header.put(MAGIC);
+        header.put((byte) VERSION);
+        putVarint(header, engine.getWidth());
+        putVarint(header, engine.getHeight());
+        header.putLong(engine.getGenerator().getSeed());
+        header.putLong(engine.getGenerator().getGamma());
+        header.put((byte) (engine.chaosMode ? 1 : 0));
+        putVarint(header, bytes.length);
+        header.put(bytes);
+        header.flip();
+        send(new Chunk(this, header, false, false));
+        lastTick = engine.getTick();
+    }
+    synchronized void turn(long tick, int direction) {
+        event(tick, TURN, direction);
+    }
+    synchronized void chaos(long tick, boolean chaos) {
+        event(tick, CHAOS, chaos ? 1 : 0);
+    }
+    synchronized void pickup(long tick, int item, boolean enabled) {
+        event(tick, PICKUP, item << 1 | (enabled ? 1 : 0));
+    }
+    synchronized void bonus(long tick, int points) {
+        event(tick, BONUS, zigzag(points));
+    }
+    public synchronized void start(long tick) {
+        event(tick, START, 0);
+    }
+    public synchronized void pause(long tick, boolean paused) {
+        event(tick, PAUSE, paused ? 1 : 0);
+    }
+    synchronized void end(long tick, int points, int size) {
+        /*
+         * Writes down how the game ended, and closes the file. Nothing
+         * more can be recorded after this.
+         *
+         * Parameters:
+         * tick - the tick the game ended on
+         * points - the final score
+         * size - the snake's final size
+         * Returns: Nothing
+         */
+        if(closed) return;
+        event(tick, END, 0);
+        putVarint(buffer, tick);
+        putVarint(buffer, zigzag(points) & 0xFFFFFFFFL);
+        putVarint(buffer, size);
+        close();
+    }
+    public synchronized void close() {
+        /*
+         * Writes out whatever is left in the buffer and closes the file. Like the rest
+         * of the writing, that happens later, on the writer thread.
+         *
+         * Parameters: None
+         * Returns: Nothing
+         */
+        if(closed) return;
+        buffer.flip();
+        send(new Chunk(this, buffer, true, false));
+        buffer = null;
+        closed = true;
+    }
+    public synchronized void discard() {
+        /*
+         * Closes the file, and then deletes it, for a game that isn't worth keeping.
+         *
+         * Parameters: None
+         * Returns: Nothing
+         */
+        close();
+        send(new Chunk(this, null, true, true));
+    }
+    private void event(long tick, int type, int value) {
+        /*
+         * Puts one event in the buffer, handing the buffer to the writer first if it might not fit.
+         *
+         * Parameters:
+         * tick - the tick the event happened on (after that many ticks were played)
+         * type - what kind of event, one of the constants above
+         * value - what happened, which depends on the type
+         * Returns: Nothing
+         */
+        if(closed) return;
+        if(buffer.remaining() < 64) {
+            //Room for the biggest event, and what follows END
+            buffer.flip();
+            send(new Chunk(this, buffer, false, false));
+            buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        }
+        putVarint(buffer, tick - lastTick);
+        putVarint(buffer, (value & 0xFFFFFFFFL) << 3 | type);
+        lastTick = tick;
+    }
+    
+    /*
+     *
+     * The writer thread.
+     *
+     */
+    private static synchronized void send(Chunk chunk) {
+        //Queues a chunk for the writer, starting the writer if it hasn't been yet
+        if(writer == null) {
+            writer = new Thread("Replay writer") {
+                public void run() {
+                    writeBehind();
+                }
+            };
+            writer.setDaemon(true); //awaitWrites() is what makes sure everything gets written
+            writer.start();
+        }
+        queue.add(chunk);
+    }
+    private static void writeBehind() {
+        /*
+         * The writer thread: writes out chunks, in the order they were sent, forever.
+         *
+         * Parameters: None
+         * Returns: Nothing
+         */
+        while(true) {
+            Chunk chunk;
+            try {
+                chunk = queue.take();
+            }
+            catch(InterruptedException e) {
+                continue;
+            }
+            if(chunk.recorder != null) chunk.recorder.write(chunk);
+            if(chunk.done != null) chunk.done.countDown();
+        }
+    }
+    private void write(Chunk chunk) {
+        /*
+         * Writes one chunk of this replay (on the writer thread). If the file can't be
+         * written to, the rest of the replay is dropped, but the game goes on.
+         *
+         * Parameters: chunk - the chunk
+         * Returns: Nothing
+         */
+        try {
+            if(chunk.bytes != null && !broken) {
+                if(channel == null) {
+                    File dir = file.getAbsoluteFile().getParentFile();
+                    if(dir != null) dir.mkdirs();
+                    channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING);
+                }
+                while(chunk.bytes.hasRemaining()) channel.write(chunk.bytes);
+            }
+        }
+        catch(IOException e) {
+            e.printStackTrace();
+            broken = true;
+        }
+        if(chunk.close || broken) {
+            try {
+                if(channel != null) channel.close();
+            }
+            catch(IOException e) {
+                e.printStackTrace();
+            }
+            channel = null;
+        }
+        if(chunk.delete && !file.delete() && file.exists()) System.err.println("Couldn't delete " + file);
+    }
+    public static void awaitWrites() {
+        /*
+         * Waits for the writer to write out everything that's been sent to it so far.
+         *
+         * Parameters: None
+         * Returns: Nothing
+         */
+        Chunk marker = new Chunk(null, null, false, false);
+        marker.done = new CountDownLatch(1);
+        send(marker);
+        boolean interrupted = false;
+        while(marker.done.getCount() > 0) {
+            try {
+                marker.done.await();
+            }
+            catch(InterruptedException e) {
+                interrupted = true; //Finish waiting anyway, and pass it on afterwards
+            }
+        }
+        if(interrupted) Thread.currentThread().interrupt();
+    }
+    
+    /*
+     *
+     * Number encoding, shared with ReplayPlayer.
+     *
+     */
+    static void putVarint(ByteBuffer out, long value) {
+        /*
+         * Writes a number that can't be negative in as few bytes as it needs: seven
+         * bits a byte, lowest first, with the top bit set on every byte but the last.
+         * Most events are a byte or two this way, since they tend to be close together.
+         *
+         * Parameters:
+         * out - where to write it
+         * value - the number, which must not be negative
+         * Returns: Nothing
+         */
+        while((value & ~0x7FL) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+    static long getVarint(ByteBuffer in) throws IOException {
+        /*
+         * Reads a number written by putVarint().
+         *
+         * Parameters: in - where to read it from
+         * Returns: The number
+         */
+        long value = 0;
+        for(int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if(b >= 0) return value;
+        }
+        throw new IOException("Bad number in replay");
+    }
+    static int zigzag(int value) {
+        //Returns: value as a number that isn't negative (0, -1, 1, -2... become 0, 1, 2, 3...)
+        return (value << 1) ^ (value >> 31);
+    }
+    static int unzigzag(int value) {
+        //Returns: The number that zigzag() turned into value
+        return (value >>> 1) ^ -(value & 1);
+    }
+    
+    /*
+     *
+     * Accessor methods.
+     *
+     */
+    public File getFile() {
+        //Returns: The file the replay is written to
+        return file;
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ * Miles Krusniak
+ * SaveState.java (Snake)
+ *
+ * SaveState saves a game in progress to a file, and puts it back later,
+ * exactly as it was - the same board, the same snake, and the random number
+ * generator where it was, so that the game goes on just as it would have.
+ *
+ * The file has a fixed layout, so every part of the game is copied straight
+ * between its arrays and a buffer, and the buffer is read or written in one
+ * go, without going through Java serialization. (It isn't memory-mapped: on
+ * Windows a mapped file can't be moved or deleted until the map is garbage
+ * collected, and a save that can't be deleted gets picked up again.) Only
+ * the board's chunks that aren't blank are saved, so even a huge board saves
+ * and loads in milliseconds unless the snake has been all over it.
+ *
+ * File layout (big-endian):
+ *   HEADER_SIZE bytes of header (see the offsets below)
+ *   the snake, one packed location per part, head first
+ *   the pickups, in the order the engine keeps them, as packed location and item
+ *   the empty boxes, in the order the engine keeps them (small boards only)
+ *   the chunk table, as chunk number, boxes not blank and boxes empty for each saved chunk
+ *   the saved chunks, CHUNK_BYTES each, starting at the first multiple of CHUNK_BYTES
+ */
+
+package com.miolean.snake;
+
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+
+public class SaveState {
+    /*
+     * Saving and loading games in progress.
+     *
+     * Extends: Nothing
+     * Implements: Nothing
+     */
+    
+    final static int MAGIC = 0x534E4B53; //"SNKS"
+    final static int VERSION = 2;
+    
+    //Where everything is in the header
+    final private static int WIDTH = 8, HEIGHT = 12;
+    final private static int SEED = 16, GAMMA = 24, TICK = 32;
+    final private static int SPEED = 40, POINTS = 44;
+    final private static int CHAOS = 48, DEAD = 49, DIRECTION = 50;
+    final private static int SNAKE_LENGTH = 52, SNAKE_SIZE = 56;
+    final private static int PICKUP_COUNT = 60, FREE_COUNT = 64, CHUNK_COUNT = 68;
+    final private static int CHAOS_CLOCK = 72;
+    final private static int ITEMS = 76; //One byte for each item up to MAX_ITEM: 0 not a pickup, 1 off, 2 on
+    final private static int HEADER_SIZE = ITEMS + PickupRegistry.MAX_ITEM + 1;
+    
+    //Chunks are saved whole, and read or written a batch at a time so that a huge board doesn't need one huge buffer
+    final private static int CHUNK_BYTES = BoardStore.CHUNK_SIZE * BoardStore.CHUNK_SIZE;
+    final private static int CHUNKS_PER_BATCH = 256;
+    
+    private SaveState() {
+        //Not to be constructed - everything here is static
+    }
+    
+    public static void save(SnakeEngine engine, File file) throws IOException {
+        /*
+         * Saves a game. It's written to a file next to the real one first, which then
+         * takes the real one's place, so that a save that fails partway through never
+         * leaves a broken file behind.
+         *
+         * Parameters:
+         * engine - the game to save. It can't change while it's being saved.
+         * file - where to save it
+         * Returns: Nothing
+         */
+        File temp = new File(file.getPath() + ".tmp");
+        synchronized(engine) {
+            BoardStore board = engine.getBoard();
+            FreeCellSet freeCells = engine.getFreeCells();
+            SnakeObject snake = engine.snake;
+            int snakeLength = snake.getLength();
+            int pickupCount = engine.pickups.size();
+            int freeCount = (freeCells != null) ? freeCells.size() : -1;
+            int chunkCount = board.getAllocatedChunks(); //The chunks that aren't blank
+            long dataStart = dataStart(snakeLength, pickupCount, freeCount, chunkCount);
+            
+            FileChannel channel = FileChannel.open(temp.toPath(), StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+            try {
+                ByteBuffer buffer = ByteBuffer.allocate((int) dataStart);
+                buffer.putInt(0, MAGIC);
+                buffer.putInt(4, VERSION);
+                buffer.putInt(WIDTH, engine.getWidth());
+                buffer.putInt(HEIGHT, engine.getHeight());
+                buffer.putLong(SEED, engine.getGenerator().getSeed());
+                buffer.putLong(GAMMA, engine.getGenerator().getGamma());
+                buffer.putLong(TICK, engine.getTick());
+                buffer.putInt(SPEED, engine.speed);
+                buffer.putInt(POINTS, engine.points);
+                buffer.put(CHAOS, (byte) (engine.chaosMode ? 1 : 0));
+                buffer.put(DEAD, (byte) (engine.isDead() ? 1 : 0));
+                buffer.put(DIRECTION, (byte) snake.getDirection());
+                buffer.putInt(SNAKE_LENGTH, snakeLength);
+                buffer.putInt(SNAKE_SIZE, snake.getSize());
+                buffer.putInt(PICKUP_COUNT, pickupCount);
+                buffer.putInt(FREE_COUNT, freeCount);
+                buffer.putInt(CHUNK_COUNT, chunkCount);
+                buffer.putInt(CHAOS_CLOCK, engine.getChaosClock());
+                for(PickupType type : engine.registry.getTypes()) buffer.put(ITEMS + type.item, (byte) (type.enabled ? 2 : 1));
+                
+                buffer.position(HEADER_SIZE);
+                IntBuffer ints = buffer.asIntBuffer();
+                for(int i = 0; i < snakeLength; i++) ints.put(snake.getPart(i));
+                for(int i = 0; i < pickupCount; i++) {
+                    ints.put(engine.pickups.getLocation(i));
+                    ints.put(engine.pickups.getType(i));
+                }
+                if(freeCells != null) freeCells.save(ints);
+                int[] saved = new int[chunkCount];
+                for(int c = 0, n = 0; c < board.getChunkCount(); c++) {
+                    if(board.getChunk(c) == null) continue;
+                    saved[n++] = c;
+                    ints.put(c);
+                    ints.put(board.getChangedCount(c));
+                    ints.put(board.getFreeCount(c));
+                }
+                buffer.clear();
+                write(channel, buffer, 0);
+                
+                ByteBuffer data = ByteBuffer.allocateDirect(Math.min(CHUNKS_PER_BATCH, Math.max(chunkCount, 1)) * CHUNK_BYTES);
+                for(int first = 0; first < chunkCount; first += CHUNKS_PER_BATCH) {
+                    int n = Math.min(CHUNKS_PER_BATCH, chunkCount - first);
+                    data.clear();
+                    for(int i = 0; i < n; i++) data.put(board.getChunk(saved[first + i]));
+                    data.flip();
+                    write(channel, data, dataStart + (long) first * CHUNK_BYTES);
+                }
+                channel.force(false);
+            } finally {
+                channel.close();
+            }
+        }
+        
+        try {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch(AtomicMoveNotSupportedException e) {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+    public static SnakeEngine load(File file, PickupRegistry registry) throws IOException {
+        /*
+         * Puts a saved game back.
+         *
+         * Parameters:
+         * file - where it was saved
+         * registry - the kinds of pickup to play with, which must have every kind the saved game had.
+         *            The ones the saved game had turned off get turned off, but only once the whole
+         *            file has been read, so a file that's no good leaves it as it was.
+         * Returns: The saved game, ready to go on
+         */
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE);
+            if(!read(channel, buffer, 0) || buffer.getInt(0) != MAGIC) throw new IOException(file + " isn't a saved game");
+            if(buffer.getInt(4) != VERSION) throw new IOException(file + " is from a different version of the game");
+            int snakeLength = buffer.getInt(SNAKE_LENGTH);
+            int pickupCount = buffer.getInt(PICKUP_COUNT);
+            int freeCount = buffer.getInt(FREE_COUNT);
+            int chunkCount = buffer.getInt(CHUNK_COUNT);
+            long dataStart = dataStart(snakeLength, pickupCount, freeCount, chunkCount);
+            if(channel.size() < dataStart + (long) chunkCount * CHUNK_BYTES) throw new IOException(file + " is cut off");
+            if(dataStart > Integer.MAX_VALUE) throw new IOException(file + " is broken");
+            
+            //Which pickups were on. They're only put back at the end, once nothing else can go wrong.
+            byte[] items = new byte[PickupRegistry.MAX_ITEM + 1];
+            for(int item = SnakeEngine.FOOD_ITEM; item <= PickupRegistry.MAX_ITEM; item++) {
+                items[item] = buffer.get(ITEMS + item);
+                if(items[item] == 0) continue;
+                if(registry.get(item) == null) throw new IOException(file + " was saved with a pickup (item " + item + ") that isn't here");
+            }
+            SnakeEngine engine = new SnakeEngine(buffer.getInt(WIDTH), buffer.getInt(HEIGHT), new GameRandom(0), registry);
+            engine.chaosMode = buffer.get(CHAOS) != 0;
+            engine.speed = buffer.getInt(SPEED);
+            engine.points = buffer.getInt(POINTS);
+            
+            //Then the sections, straight into the engine's arrays
+            buffer = ByteBuffer.allocate((int) dataStart);
+            if(!read(channel, buffer, 0)) throw new IOException(file + " is cut off");
+            buffer.position(HEADER_SIZE);
+            IntBuffer ints = buffer.asIntBuffer();
+            SnakeObject snake = new SnakeObject(ints, snakeLength, buffer.getInt(SNAKE_SIZE), buffer.get(DIRECTION));
+            BoardStore board = engine.getBoard();
+            board.clear();
+            engine.pickups.clear();
+            for(int i = 0; i < pickupCount; i++) {
+                int location = ints.get();
+                engine.pickups.add(SnakeObject.getX(location), SnakeObject.getY(location), ints.get());
+            }
+            FreeCellSet freeCells = engine.getFreeCells();
+            if((freeCells != null) != (freeCount >= 0)) throw new IOException(file + " doesn't match its board size");
+            if(freeCells != null) freeCells.load(ints, freeCount);
+            int[] table = new int[chunkCount * 3];
+            ints.get(table);
+            
+            ByteBuffer data = ByteBuffer.allocateDirect(Math.min(CHUNKS_PER_BATCH, Math.max(chunkCount, 1)) * CHUNK_BYTES);
+            for(int first = 0; first < chunkCount; first += CHUNKS_PER_BATCH) {
+                int n = Math.min(CHUNKS_PER_BATCH, chunkCount - first);
+                data.clear();
+                data.limit(n * CHUNK_BYTES);
+                if(!read(channel, data, dataStart + (long) first * CHUNK_BYTES)) throw new IOException(file + " is cut off");
+                data.flip();
+                for(int i = first; i < first + n; i++) board.loadChunk(table[i * 3], data, table[i * 3 + 1], table[i * 3 + 2]);
+            }
+            
+            engine.restore(snake, new GameRandom(buffer.getLong(SEED), buffer.getLong(GAMMA)), buffer.getLong(TICK), buffer.getInt(CHAOS_CLOCK),
+                buffer.get(DEAD) != 0);
+            for(int item = SnakeEngine.FOOD_ITEM; item <= PickupRegistry.MAX_ITEM; item++) {
+                if(items[item] != 0) registry.setEnabled(item, items[item] == 2);
+            }
+            return engine;
+        }
+        catch(BufferUnderflowException e) {
+            throw new IOException(file + " is cut off");
+        }
+        catch(IndexOutOfBoundsException | IllegalArgumentException | NegativeArraySizeException e) {
+            throw new IOException(file + " is broken: " + e);
+        } finally {
+            channel.close();
+        }
+    }
+    
+    private static void write(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        //Writes all of what's left in buffer to the file, starting at position
+        while(buffer.hasRemaining()) position += channel.write(buffer, position);
+    }
+    private static boolean read(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        //Fills what's left of buffer from the file, starting at position. Returns: false if the file ended first
+        while(buffer.hasRemaining()) {
+            int n = channel.read(buffer, position);
+            if(n < 0) return false;
+            position += n;
+        }
+        return true;
+    }
+    private static long dataStart(int snakeLength, int pickupCount, int freeCount, int chunkCount) {
+        /*
+         * Works out where the saved chunks start: after the header and every section,
+         * rounded up to a whole chunk so that they're lined up with the file's pages.
+         *
+         * Parameters: how many of each thing there is in the file
+         * Returns: The offset of the first saved chunk
+         */
+        long end = HEADER_SIZE + 4L * (snakeLength + 2L * pickupCount + Math.max(freeCount, 0) + 3L * chunkCount);
+        return (end + CHUNK_BYTES - 1) / CHUNK_BYTES * CHUNK_BYTES;
+    }
+}
@@ -0,0 +1,563 @@
+/*
+ * Miles Krusniak
+ * ScoreLog.java (Snake)
+ *
+ * ScoreLog keeps every score ever played, in a file that only ever gets
+ * added to, along with the best scores of each kind of game (chaos mode or
+ * not, and which pickups were turned on - see SnakeScore.getMode()).
+ *
+ * Every score is one fixed-size record, so the file never has to be read
+ * as a whole: the best scores are kept in an index file next to it, which
+ * says how much of the log it covers, and starting up only reads the index
+ * and whatever records were added after it. If the index is missing, it's
+ * made again from the whole log.
+ *
+ * Adding a score never waits on the disk: the score is ranked straight away
+ * and queued, and a writer thread of its own writes the queue out, as many
+ * scores at a time as have piled up, and then syncs the file to the disk as
+ * often as the sync policy says. If the program dies partway through a write,
+ * the log is the journal: the next start reads whatever the index doesn't
+ * cover, and cuts off the broken record (or records) at the end.
+ *
+ * Log format: "SNKL", version (int), then RECORD_SIZE bytes a score.
+ * Record format (big-endian):
+ *   0  points (int)        4  size (int)       8  speed (short)
+ *   10 flags (bit 0 chaos) 11 name length      12 items (long)
+ *   20 time (long)         28 name, NAME_BYTES of UTF-8
+ *   60 CRC-32 of everything before it
+ * Index format: "SNKI", version (int), log length covered (long), scores in
+ * that much of the log (long), number of modes (int), then for each mode its
+ * key (long), number of scores (int) and the scores as records, best first.
+ */
+
+package com.miolean.snake;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.zip.CRC32;
+
+public class ScoreLog {
+    /*
+     * Every score, and the best ones of each mode.
+     *
+     * Extends: Nothing
+     * Implements: Nothing
+     */
+    
+    final static int LOG_MAGIC = 0x534E4B4C; //"SNKL"
+    final static int INDEX_MAGIC = 0x534E4B49; //"SNKI"
+    final static int VERSION = 1;
+    final static int HEADER_SIZE = 8;
+    final static int RECORD_SIZE = 64;
+    final private static int NAME_BYTES = 32;
+    
+    //How many of the best scores are kept for each mode
+    final static int TOP = 100;
+    
+    //Sync policies: when a write is forced out to the disk (instead of whenever the operating
+    //system gets around to it). A score that isn't synced is lost if the computer crashes.
+    final static int SYNC_ALWAYS = 0; //After every write
+    final static int SYNC_PERIODIC = 1; //At most once every SYNC_PERIOD milliseconds
+    final static int SYNC_NEVER = 2; //Only when the log is closed
+    final static long SYNC_PERIOD = 1000;
+    
+    //The index is saved again every so many scores, so there's never much to catch up on after a crash
+    final private static int INDEX_EVERY = 10000;
+    
+    private File file, indexFile;
+    private FileChannel channel;
+    private long length; //How much of the log holds whole records (anything after that is ignored)
+    private long count; //How many scores are in the log, or on their way there
+    
+    //Scores on their way to the log, and the thread that writes them there. pending counts
+    //the scores that have been added but not written yet. CLOSE tells the writer to finish up.
+    private BlockingQueue<SnakeScore> queue = new LinkedBlockingQueue<SnakeScore>();
+    private Thread writer;
+    private int syncPolicy;
+    private int pending = 0;
+    private boolean closed = false;
+    final private static SnakeScore CLOSE = new SnakeScore(0);
+    
+    //The best scores of each mode, by SnakeScore.getMode()
+    private Map<Long, Top> best = new HashMap<Long, Top>();
+    private static class Top {
+        SnakeScore[] scores = new SnakeScore[TOP]; //Best first
+        int count;
+    }
+    
+    public ScoreLog(File file) throws IOException {
+        /*
+         * Constructor for ScoreLogs that sync every write.
+         *
+         * Parameters: file - the log. The index is the same file with ".idx" on the end.
+         * Returns: Constructed ScoreLog
+         */
+        this(file, SYNC_ALWAYS);
+    }
+    public ScoreLog(File file, int syncPolicy) throws IOException {
+        /*
+         * Constructor for ScoreLogs. Opens the log (making it if it isn't there) and gets
+         * the best scores from the index, catching up on whatever was added since it was written.
+         *
+         * Parameters:
+         * file - the log. The index is the same file with ".idx" on the end.
+         * syncPolicy - when writes are forced out to the disk, one of the SYNC constants
+         * Returns: Constructed ScoreLog
+         */
+        this.file = file;
+        this.syncPolicy = syncPolicy;
+        indexFile = new File(file.getPath() + ".idx");
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+        
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        if(channel.size() == 0) {
+            header.putInt(LOG_MAGIC).putInt(VERSION).flip();
+            while(header.hasRemaining()) channel.write(header, header.position());
+        } else {
+            while(header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+            }
+            header.flip();
+            if(header.remaining() < HEADER_SIZE || header.getInt() != LOG_MAGIC) throw new IOException(file + " isn't a score log");
+            if(header.getInt() != VERSION) throw new IOException(file + " is from a different version of the game");
+        }
+        
+        //Whatever is after the last whole record was cut off partway through being written
+        length = HEADER_SIZE + (channel.size() - HEADER_SIZE) / RECORD_SIZE * RECORD_SIZE;
+        long covered = loadIndex();
+        long end = scan(covered);
+        if(end < channel.size()) {
+            //Cut off the broken end, so that new scores go right after the last good one
+            System.err.println("Score log " + file + " was cut off partway through a write; "
+                + (channel.size() - end) + " bytes dropped");
+            channel.truncate(end);
+            channel.force(true);
+            length = end;
+        }
+        
+        writer = new Thread("Score writer") {
+            public void run() {
+                writeBehind();
+            }
+        };
+        writer.setDaemon(true); //close() is what makes sure everything gets written
+        writer.start();
+    }
+    
+    /*
+     *
+     * Adding scores.
+     *
+     */
+    public void add(SnakeScore score) {
+        /*
+         * Adds a score to the best scores of its mode if it's good enough, and queues it to be
+         * written to the end of the log. This doesn't wait for the write, so the score shouldn't
+         * be changed afterwards.
+         *
+         * Parameters: score - the score
+         * Returns: Nothing
+         */
+        synchronized(this) {
+            if(closed) throw new IllegalStateException("score log is closed");
+            rank(score);
+            count++;
+            pending++;
+        }
+        queue.add(score);
+    }
+    private void writeBehind() {
+        /*
+         * The writer thread: writes queued scores to the log until the log is closed. Whatever
+         * has piled up by the time it gets to the queue goes out in one write (and one sync).
+         *
+         * Parameters: None
+         * Returns: Nothing
+         */
+        List<SnakeScore> batch = new ArrayList<SnakeScore>();
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE * 64);
+        long lastSync = System.nanoTime();
+        boolean unsynced = false, closing = false;
+        int sinceIndex = 0;
+        
+        while(!closing) {
+            //Wait for a score. If there's a write that's waiting on a periodic sync, only wait until it's due.
+            //(Without a periodic sync, nothing's ever due, so just wait.)
+            batch.clear();
+            try {
+                SnakeScore first;
+                long wait = SYNC_PERIOD - (System.nanoTime() - lastSync) / 1000000;
+                if(unsynced && syncPolicy == SYNC_PERIODIC && wait > 0) first = queue.poll(wait, TimeUnit.MILLISECONDS);
+                else if(unsynced && syncPolicy == SYNC_PERIODIC) first = queue.poll(); //It's due now
+                else first = queue.take();
+                if(first != null) batch.add(first);
+            }
+            catch(InterruptedException e) {
+                continue; //Only close() stops us, and it does that through the queue
+            }
+            queue.drainTo(batch);
+            closing = batch.remove(CLOSE);
+            
+            GameEvents.ScoreWrite event = GameEvents.ENABLED ? GameEvents.beginScoreWrite() : null;
+            int writes = 0;
+            boolean synced = false;
+            try {
+                if(!batch.isEmpty()) {
+                    if(buffer.capacity() < batch.size() * RECORD_SIZE) buffer = ByteBuffer.allocate(batch.size() * RECORD_SIZE);
+                    buffer.clear();
+                    for(SnakeScore score : batch) putRecord(buffer, score);
+                    buffer.flip();
+                    long at = length; //Only this thread changes length (once the log is open)
+                    for(; buffer.hasRemaining(); writes++) channel.write(buffer, at + buffer.position());
+                    unsynced = true;
+                }
+                
+                //Sync if it's due, and always on the way out
+                if(unsynced && (closing || syncPolicy == SYNC_ALWAYS
+                    || (syncPolicy == SYNC_PERIODIC && System.nanoTime() - lastSync >= SYNC_PERIOD * 1000000))) {
+                    channel.force(false);
+                    lastSync = System.nanoTime();
+                    unsynced = false;
+                    synced = true;
+                }
+            }
+            catch(IOException e) {
+                //Those scores are still in the best scores, but they won't be in the log
+                e.printStackTrace();
+                synchronized(this) {
+                    pending -= batch.size();
+                    count -= batch.size();
+                }
+                if(event != null) event.finish(batch.size(), writes, synced, true);
+                continue;
+            }
+            synchronized(this) {
+                length += (long) batch.size() * RECORD_SIZE;
+                pending -= batch.size();
+            }
+            if(event != null && (writes > 0 || synced)) event.finish(batch.size(), writes, synced, false);
+            
+            sinceIndex += batch.size();
+            if(sinceIndex >= INDEX_EVERY && !closing) {
+                try {
+                    if(saveIndex()) sinceIndex = 0;
+                }
+                catch(IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+    private void rank(SnakeScore score) {
+        /*
+         * Puts a score among the best scores of its mode, if it belongs there. A score
+         * that ties one already there goes after it, since that one got there first.
+         *
+         * Parameters: score - the score
+         * Returns: Nothing
+         */
+        Top top = best.get(score.getMode());
+        if(top == null) {
+            top = new Top();
+            best.put(score.getMode(), top);
+        }
+        SnakeScore[] scores = top.scores;
+        if(top.count == TOP && scores[TOP - 1].points >= score.points) return;
+        
+        int i = Math.min(top.count, TOP - 1);
+        while(i > 0 && scores[i - 1].points < score.points) {
+            scores[i] = scores[i - 1];
+            i--;
+        }
+        scores[i] = score;
+        if(top.count < TOP) top.count++;
+    }
+    
+    /*
+     *
+     * Reading the log and the index.
+     *
+     */
+    private long scan(long from) throws IOException {
+        /*
+         * Reads the records from somewhere in the log to the end of it, adding each to the
+         * best scores. A record that doesn't match its CRC is skipped.
+         *
+         * Parameters: from - where to start, which must be the start of a record
+         * Returns: Where the last good record ends. Bad records after that are from a write
+         *          that never finished.
+         */
+        ByteBuffer block = ByteBuffer.allocate(RECORD_SIZE * 4096);
+        long position = from;
+        long end = from;
+        while(position < length) {
+            block.clear();
+            block.limit((int) Math.min(block.capacity(), length - position));
+            while(block.hasRemaining() && channel.read(block, position + block.position()) >= 0) {
+            }
+            block.flip();
+            while(block.remaining() >= RECORD_SIZE) {
+                SnakeScore score = getRecord(block);
+                if(score == null) continue;
+                rank(score);
+                count++;
+                end = position + block.position();
+            }
+            position += block.limit();
+        }
+        return end;
+    }
+    private long loadIndex() {
+        /*
+         * Reads the best scores from the index. If it's missing, broken or doesn't
+         * go with this log, none are read, and the whole log gets read instead.
+         *
+         * Parameters: None
+         * Returns: How much of the log the index covers
+         */
+        if(!indexFile.exists()) return HEADER_SIZE;
+        try {
+            ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(indexFile.toPath()));
+            if(in.getInt() != INDEX_MAGIC || in.getInt() != VERSION) return HEADER_SIZE;
+            long covered = in.getLong();
+            long covers = in.getLong();
+            if(covered > length) return HEADER_SIZE; //The log lost something since (or isn't the same log)
+            int modes = in.getInt();
+            for(int m = 0; m < modes; m++) {
+                long mode = in.getLong();
+                Top top = new Top();
+                top.count = in.getInt();
+                for(int i = 0; i < top.count; i++) {
+                    top.scores[i] = getRecord(in);
+                    if(top.scores[i] == null) throw new IOException("bad record");
+                }
+                best.put(mode, top);
+            }
+            count = covers;
+            return covered;
+        }
+        catch(Exception e) {
+            //Something's wrong with it. It's only an index, so start over from the log.
+            best.clear();
+            return HEADER_SIZE;
+        }
+    }
+    private boolean saveIndex() throws IOException {
+        /*
+         * Writes the best scores to the index, so that next time they don't have to be
+         * found by reading the whole log. It's written next to the old one first, and then
+         * takes its place, so a broken index is never left behind. The index can only say
+         * it covers scores that are in the log, so it's only saved when none are pending.
+         *
+         * Parameters: None
+         * Returns: Whether it was saved
+         */
+        ByteBuffer out;
+        synchronized(this) {
+            if(pending > 0) return false;
+            int records = 0;
+            for(Top top : best.values()) records += top.count;
+            out = ByteBuffer.allocate(28 + best.size() * 12 + records * RECORD_SIZE);
+            out.putInt(INDEX_MAGIC).putInt(VERSION).putLong(length).putLong(count).putInt(best.size());
+            for(Map.Entry<Long, Top> entry : best.entrySet()) {
+                Top top = entry.getValue();
+                out.putLong(entry.getKey()).putInt(top.count);
+                for(int i = 0; i < top.count; i++) putRecord(out, top.scores[i]);
+            }
+        }
+        
+        //The scores it covers have to be on the disk before it is
+        channel.force(false);
+        File temp = new File(indexFile.getPath() + ".tmp");
+        Files.write(temp.toPath(), out.array());
+        try {
+            Files.move(temp.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch(AtomicMoveNotSupportedException e) {
+            Files.move(temp.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        return true;
+    }
+    public void close() throws IOException {
+        /*
+         * Waits for every score to be written (and synced), saves the index and closes the log.
+         *
+         * Parameters: None
+         * Returns: Nothing
+         */
+        synchronized(this) {
+            if(closed) return;
+            closed = true;
+        }
+        queue.add(CLOSE);
+        boolean interrupted = false;
+        while(writer.isAlive()) {
+            try {
+                writer.join();
+            }
+            catch(InterruptedException e) {
+                interrupted = true; //Finish closing anyway, and pass it on afterwards
+            }
+        }
+        try {
+            saveIndex();
+        } finally {
+            channel.close();
+            if(interrupted) Thread.currentThread().interrupt();
+        }
+    }
+    
+    /*
+     *
+     * Records.
+     *
+     */
+    static void putRecord(ByteBuffer out, SnakeScore score) {
+        /*
+         * Writes a score as a record (see the top of this file).
+         *
+         * Parameters:
+         * out - where to write it, with at least RECORD_SIZE bytes of room
+         * score - the score
+         * Returns: Nothing
+         */
+        int start = out.position();
+        byte[] name = encodeName(score.playerName);
+        out.putInt(score.points);
+        out.putInt(score.size);
+        out.putShort((short) score.speed);
+        out.put((byte) (score.chaos ? 1 : 0));
+        out.put((byte) name.length);
+        out.putLong(score.items);
+        out.putLong(score.time);
+        out.put(name);
+        for(int i = name.length; i < NAME_BYTES; i++) out.put((byte) 0);
+        out.putInt(crc(out, start));
+    }
+    static SnakeScore getRecord(ByteBuffer in) {
+        /*
+         * Reads a record written by putRecord().
+         *
+         * Parameters: in - where to read it from, with at least RECORD_SIZE bytes left
+         * Returns: The score, or null if the record doesn't match its CRC
+         */
+        int start = in.position();
+        in.position(start + RECORD_SIZE - 4);
+        int expected = crc(in, start);
+        int actual = in.getInt();
+        if(expected != actual) return null;
+        
+        SnakeScore score = new SnakeScore(in.getInt(start));
+        score.size = in.getInt(start + 4);
+        score.speed = in.getShort(start + 8);
+        score.chaos = (in.get(start + 10) & 1) != 0;
+        int nameLength = Math.min(in.get(start + 11) & 0xFF, NAME_BYTES);
+        score.items = in.getLong(start + 12);
+        score.time = in.getLong(start + 20);
+        byte[] name = new byte[nameLength];
+        for(int i = 0; i < nameLength; i++) name[i] = in.get(start + 28 + i);
+        score.playerName = new String(name, StandardCharsets.UTF_8);
+        return score;
+    }
+    private static int crc(ByteBuffer buffer, int start) {
+        //Returns: The CRC-32 of the bytes from start up to the buffer's position (which must be backed by an array)
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), buffer.arrayOffset() + start, buffer.position() - start);
+        return (int) crc.getValue();
+    }
+    private static byte[] encodeName(String name) {
+        //Returns: name in UTF-8, cut down (a whole character at a time) to fit in NAME_BYTES
+        if(name == null) name = "";
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        while(bytes.length > NAME_BYTES) {
+            name = name.substring(0, name.length() - 1);
+            bytes = name.getBytes(StandardCharsets.UTF_8);
+        }
+        return bytes;
+    }
+    
+    /*
+     *
+     * Scores from before there was a log.
+     *
+     */
+    public int importLegacy(File legacy, long items) throws IOException {
+        /*
+         * Adds the scores from an old high score file (an array of SnakeScores written with
+         * Java serialization) to the log. Those scores don't say which pickups were on.
+         *
+         * Parameters:
+         * legacy - the old file
+         * items - the pickups to say were on (see PickupRegistry.getEnabledMask())
+         * Returns: How many scores were added
+         */
+        ObjectInputStream stream = new ObjectInputStream(new FileInputStream(legacy)) {
+            //The old files are from before SnakeScore had a package. A class is found by its name
+            //without the package anyway, but an array of them has to be swapped for ours.
+            protected ObjectStreamClass readClassDescriptor() throws IOException, ClassNotFoundException {
+                ObjectStreamClass desc = super.readClassDescriptor();
+                if(desc.getName().equals("[LSnakeScore;")) return ObjectStreamClass.lookup(SnakeScore[].class);
+                return desc;
+            }
+            protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+                if(desc.getName().equals("SnakeScore")) return SnakeScore.class;
+                return super.resolveClass(desc);
+            }
+        };
+        SnakeScore[] scores;
+        try {
+            scores = (SnakeScore[]) stream.readObject();
+        }
+        catch(ClassNotFoundException | ClassCastException e) {
+            throw new IOException(legacy + " isn't a high score file");
+        } finally {
+            stream.close();
+        }
+        int added = 0;
+        for(SnakeScore score : scores) {
+            if(score == null || score.points <= 0) continue; //The empty places were 0-point "Nobody"s
+            score.items = items;
+            add(score);
+            added++;
+        }
+        return added;
+    }
+    
+    /*
+     *
+     * Accessor methods.
+     *
+     */
+    public synchronized SnakeScore[] getBest(long mode, int n) {
+        /*
+         * Gets the best scores of a mode. If there aren't enough, the rest are
+         * 0-point scores by "Nobody", like an empty high score table.
+         *
+         * Parameters:
+         * mode - which mode (see SnakeScore.getMode())
+         * n - how many scores, up to TOP
+         * Returns: The best n scores of the mode, best first
+         */
+        Top top = best.get(mode);
+        SnakeScore[] scores = new SnakeScore[n];
+        for(int i = 0; i < n; i++) scores[i] = (top != null && i < top.count) ? top.scores[i] : new SnakeScore(0);
+        return scores;
+    }
+    public synchronized long getCount() {
+        //Returns: How many scores are in the log
+        return count;
+    }
+    public synchronized int getModeCount() {
+        //Returns: How many different modes have been played
+        return best.size();
+    }
+    public File getFile() {
+        //Returns: The log file
+        return file;
+    }
+}
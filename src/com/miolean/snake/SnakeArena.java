@@ -0,0 +1,357 @@
+/*
+ * Miles Krusniak
+ * SnakeArena.java (Snake)
+ *
+ * SnakeArena is Snake with lots of snakes on one (usually big) board, each
+ * one steered by a SnakeDriver. Like SnakeEngine, it has no window, and
+ * nothing in it knows about Swing or AWT.
+ *
+ * Each tick happens in three phases:
+ * 1. Decide - every driver picks a direction for its snake. The drivers only
+ *    look at the board, so they all run at once, spread across the cores.
+ * 2. Resolve - work out who dies. A snake dies if it runs into a wall, any
+ *    snake (its own tail included, just like in SnakeEngine), or a deadly
+ *    pickup, and snakes whose heads run into the same box all die. This part
+ *    doesn't depend on what order the snakes are in, so the same seed always
+ *    plays out the same way no matter how the threads happened to run.
+ * 3. Commit - the surviving snakes move and eat, and the dead ones are taken
+ *    off the board (and come back somewhere else, if respawning is on).
+ *
+ * Pickups work like they do in normal mode, except that there's one for
+ * every snake on the board instead of just one, and there's no speed: every
+ * snake moves once per tick, so pickups that change speed don't here.
+ */
+
+package com.miolean.snake;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+public class SnakeArena {
+    /*
+     * Representation of a board shared by many snakes.
+     *
+     * Extends: Nothing
+     * Implements: Nothing
+     */
+    
+    //The board, and the pickups on it. Not private so that drivers can look at them.
+    private BoardStore board;
+    final PickupIndex pickups;
+    final PickupRegistry registry;
+    
+    //The snakes, and everything about them, indexed by snake number
+    private SnakeObject[] snakes = new SnakeObject[16];
+    private SnakeDriver[] drivers = new SnakeDriver[16];
+    private boolean[] alive = new boolean[16];
+    private int[] points = new int[16];
+    private int[] deaths = new int[16];
+    private int count = 0;
+    private int bestPoints = 0; //The most points any snake had when it died
+    
+    //What happens this tick, filled in one phase and used by the next
+    private int[] targets = new int[16]; //The box each snake's head is moving into
+    private boolean[] dying = new boolean[16]; //Whether each snake dies this tick
+    private long[] claims = new long[16]; //Target and snake number, for finding heads that collide
+    
+    //Whether dead snakes come back, and (if so) how many ticks it's been in all
+    boolean respawn = true;
+    private long ticks = 0;
+    
+    //Where the deciding happens. Snakes are handed out to the threads in groups of
+    //this many; less than that isn't worth the trouble of handing out.
+    private ForkJoinPool pool;
+    final private static int SNAKES_PER_TASK = 8;
+    
+    //The one random number generator for the arena (each bot has its own, split off of this one)
+    private GameRandom generator;
+    
+    public SnakeArena(int width, int height, GameRandom generator, PickupRegistry registry, ForkJoinPool pool) {
+        /*
+         * Constructor for SnakeArenas. The arena starts out with no snakes.
+         *
+         * Parameters:
+         * width - the length of the board, walls included
+         * height - the width of the board, walls included
+         * generator - where the arena gets its random numbers from
+         * registry - the kinds of pickup to play with
+         * pool - the threads to decide moves on, or null to decide them one at a time
+         * Returns: Constructed SnakeArena
+         */
+        if(width < SnakeEngine.MIN_SIZE || height < SnakeEngine.MIN_SIZE || width > SnakeEngine.MAX_SIZE
+            || height > SnakeEngine.MAX_SIZE) {
+            throw new IllegalArgumentException("board must be " + SnakeEngine.MIN_SIZE + " to " + SnakeEngine.MAX_SIZE
+                + " boxes on a side, not " + width + "x" + height);
+        }
+        board = new BoardStore(width, height);
+        pickups = new PickupIndex(registry.getMaxItem());
+        this.registry = registry;
+        this.generator = generator;
+        this.pool = pool;
+    }
+    
+    public int addSnake(SnakeDriver driver) {
+        /*
+         * Puts a new snake somewhere empty on the board.
+         *
+         * Parameters: driver - what steers the new snake
+         * Returns: The new snake's number
+         */
+        if(count == snakes.length) {
+            int length = count * 2;
+            snakes = Arrays.copyOf(snakes, length);
+            drivers = Arrays.copyOf(drivers, length);
+            alive = Arrays.copyOf(alive, length);
+            points = Arrays.copyOf(points, length);
+            deaths = Arrays.copyOf(deaths, length);
+            targets = Arrays.copyOf(targets, length);
+            dying = Arrays.copyOf(dying, length);
+            claims = Arrays.copyOf(claims, length);
+        }
+        drivers[count] = driver;
+        spawn(count);
+        count++;
+        fillPickups();
+        return count - 1;
+    }
+    public int addBot() {
+        /*
+         * Puts a new GreedyDriver-steered snake on the board.
+         *
+         * Parameters: None
+         * Returns: The new snake's number
+         */
+        return addSnake(new GreedyDriver(generator.split()));
+    }
+    
+    /*
+     *
+     * Playing a tick.
+     *
+     */
+    public void step() {
+        /*
+         * Plays a single tick for every living snake: decide, resolve, commit.
+         *
+         * Parameters: None
+         * Returns: Nothing
+         */
+        
+        //Decide
+        if(pool == null || count <= SNAKES_PER_TASK) decide(0, count);
+        else pool.invoke(new DecideTask(0, count));
+        
+        //Resolve. First anything that kills a snake on its own...
+        int claimCount = 0;
+        for(int i = 0; i < count; i++) {
+            if(!alive[i]) continue;
+            int item = board.get(SnakeObject.getX(targets[i]) - 1, SnakeObject.getY(targets[i]) - 1);
+            PickupType type = registry.get(item);
+            dying[i] = (item == SnakeEngine.WALL_ITEM || item == SnakeEngine.SNAKE_ITEM
+                || item == SnakeEngine.SNAKEHEAD_ITEM || (type != null && type.deadly));
+            claims[claimCount++] = ((long) targets[i] << 32) | i;
+        }
+        //...then heads running into each other. Sorting the claims by box puts all of
+        //the snakes moving into the same box next to each other.
+        Arrays.sort(claims, 0, claimCount);
+        for(int i = 1; i < claimCount; i++) {
+            if((claims[i] >>> 32) == (claims[i - 1] >>> 32)) {
+                dying[(int) claims[i]] = true;
+                dying[(int) claims[i - 1]] = true;
+            }
+        }
+        
+        //Commit. Nobody still alive is moving into a box that anything else is in or
+        //moving into, so it doesn't matter what order the moves happen in.
+        int eaten = 0;
+        for(int i = 0; i < count; i++) {
+            if(!alive[i] || dying[i]) continue;
+            SnakeObject snake = snakes[i];
+            int item = board.get(SnakeObject.getX(targets[i]) - 1, SnakeObject.getY(targets[i]) - 1);
+            snake.move();
+            int vacated = snake.getVacated();
+            if(vacated != SnakeObject.NO_CELL) setItem(vacated, SnakeEngine.NO_ITEM);
+            if(snake.getLength() > 1) setItem(snake.getPart(1), SnakeEngine.SNAKE_ITEM);
+            setItem(targets[i], SnakeEngine.SNAKEHEAD_ITEM);
+            
+            PickupType type = registry.get(item);
+            if(type != null) {
+                points[i] += type.points;
+                snake.extend(type.extendBy);
+                eaten++;
+            }
+        }
+        for(int i = 0; i < count; i++) {
+            if(alive[i] && dying[i]) kill(i);
+        }
+        if(eaten > 0) fillPickups();
+        if(respawn) {
+            for(int i = 0; i < count; i++) {
+                if(!alive[i]) spawn(i);
+            }
+        }
+        ticks++;
+    }
+    private void decide(int from, int to) {
+        /*
+         * The decide phase for some of the snakes: ask each one's driver where it's going, and
+         * work out which box that is. Each snake is only touched by one thread.
+         *
+         * Parameters:
+         * from - the first snake to decide for
+         * to - one more than the last snake to decide for
+         * Returns: Nothing
+         */
+        for(int i = from; i < to; i++) {
+            if(!alive[i]) continue;
+            int direction = drivers[i].nextDirection(this, i);
+            if(direction != SnakeEngine.NO_TURN && direction != SnakeObject.opposite(snakes[i].getDirection())) {
+                snakes[i].changeDirection(direction);
+            }
+            targets[i] = snakes[i].getNextHead();
+        }
+    }
+    private class DecideTask extends RecursiveAction {
+        /*
+         * The decide phase for a range of snakes, split in half until the pieces are small
+         * enough to be worth a thread each.
+         *
+         * Extends: RecursiveAction
+         * Implements: Nothing
+         */
+        private int from, to;
+        
+        DecideTask(int from, int to) {
+            //Parameters: from, to - the snakes to decide for, as in decide()
+            this.from = from;
+            this.to = to;
+        }
+        protected void compute() {
+            //Small enough? Then just do it. Otherwise split it in two and do both halves at once.
+            if(to - from <= SNAKES_PER_TASK) {
+                decide(from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new DecideTask(from, middle), new DecideTask(middle, to));
+        }
+    }
+    
+    /*
+     *
+     * Board operations.
+     *
+     */
+    private void spawn(int i) {
+        /*
+         * Puts snake i back on the board as a new snake, at a random empty box, facing a
+         * random direction. If the board is full, it stays dead and we try again next tick.
+         *
+         * Parameters: i - which snake
+         * Returns: Nothing
+         */
+        int cell = board.pickFree(generator);
+        if(cell == SnakeObject.NO_CELL) return;
+        int[] directions = {SnakeObject.LEFT, SnakeObject.RIGHT, SnakeObject.UP, SnakeObject.DOWN};
+        snakes[i] = new SnakeObject(SnakeObject.getX(cell) + 1, SnakeObject.getY(cell) + 1, directions[generator.nextInt(4)]);
+        setItem(snakes[i].getPart(0), SnakeEngine.SNAKEHEAD_ITEM);
+        alive[i] = true;
+        points[i] = 0;
+    }
+    private void kill(int i) {
+        /*
+         * Takes dead snake i off the board, which leaves room for the others.
+         *
+         * Parameters: i - which snake
+         * Returns: Nothing
+         */
+        SnakeObject snake = snakes[i];
+        for(int part = 0; part < snake.getLength(); part++) setItem(snake.getPart(part), SnakeEngine.NO_ITEM);
+        alive[i] = false;
+        deaths[i]++;
+        if(points[i] > bestPoints) bestPoints = points[i];
+    }
+    private void fillPickups() {
+        /*
+         * Places pickups until there's one for every snake, or there's no more room.
+         *
+         * Parameters: None
+         * Returns: Nothing
+         */
+        while(pickups.size() < count) {
+            int cell = board.pickFree(generator);
+            if(cell == SnakeObject.NO_CELL) return;
+            int item = registry.pick(generator, false);
+            if(item < SnakeEngine.FOOD_ITEM) return; //Every kind is turned off
+            setItem(SnakeObject.pack(SnakeObject.getX(cell) + 1, SnakeObject.getY(cell) + 1), item);
+        }
+    }
+    private void setItem(int location, int item) {
+        /*
+         * Puts an item on the board, keeping the pickup index up to date. Every change to
+         * the board goes through here.
+         *
+         * Parameters:
+         * location - the snake location (see SnakeObject.pack()) to put it at; the board location is one less
+         * item - the item to put there
+         * Returns: Nothing
+         */
+        int x = SnakeObject.getX(location) - 1;
+        int y = SnakeObject.getY(location) - 1;
+        int old = board.get(x, y);
+        if(old >= SnakeEngine.FOOD_ITEM) pickups.remove(x, y);
+        if(item >= SnakeEngine.FOOD_ITEM) pickups.add(x, y, item);
+        board.set(x, y, item);
+    }
+    
+    /*
+     *
+     * Accessor methods.
+     *
+     */
+    public int getItem(int x, int y) {
+        //Returns: The item at (x, y) on the board
+        return board.get(x, y);
+    }
+    BoardStore getBoard() {
+        //Returns: The board itself, for drivers to look at. Only the arena may change it.
+        return board;
+    }
+    public int getWidth() {
+        //Returns: The length of the board, walls included
+        return board.getWidth();
+    }
+    public int getHeight() {
+        //Returns: The width of the board, walls included
+        return board.getHeight();
+    }
+    public int getSnakeCount() {
+        //Returns: The number of snakes, living or dead
+        return count;
+    }
+    public SnakeObject getSnake(int i) {
+        //Returns: Snake i (which may be dead; see isAlive())
+        return snakes[i];
+    }
+    public boolean isAlive(int i) {
+        //Returns: Whether snake i is on the board right now
+        return alive[i];
+    }
+    public int getPoints(int i) {
+        //Returns: The points snake i has gotten since it last came back
+        return points[i];
+    }
+    public int getDeaths(int i) {
+        //Returns: The number of times snake i has died
+        return deaths[i];
+    }
+    public int getBestPoints() {
+        //Returns: The most points any snake has had when it died
+        return bestPoints;
+    }
+    public long getTicks() {
+        //Returns: The number of ticks played
+        return ticks;
+    }
+}
@@ -0,0 +1,30 @@
+/*
+ * Miles Krusniak
+ * SnakeDriver.java (Snake)
+ *
+ * A SnakeDriver steers one snake in a SnakeArena - a bot, or something
+ * passing along a player's key presses. Every tick the arena asks every
+ * driver which way its snake should go, all at the same time on different
+ * threads, so a driver may look at the arena but must not change it.
+ */
+
+package com.miolean.snake;
+
+public interface SnakeDriver {
+    /*
+     * Something that decides where a snake goes.
+     *
+     * Extends: Nothing
+     */
+    
+    /*
+     * Decides which way a snake should go this tick. Called once per tick for each
+     * living snake, before anything on the board moves.
+     *
+     * Parameters:
+     * arena - the arena the snake is in
+     * snake - which snake in the arena
+     * Returns: One of SnakeObject's directional constants, or SnakeEngine.NO_TURN to keep going
+     */
+    public int nextDirection(SnakeArena arena, int snake);
+}
@@ -0,0 +1,583 @@
+/*
+ * Miles Krusniak
+ * SnakeEngine.java (Snake)
+ *
+ * SnakeEngine is the game of Snake without a window: the board, the snake,
+ * the pickups and the scoring. SnakeGame drives one of these from its run()
+ * loop and draws it, but nothing in here knows about Swing or AWT, so it can
+ * also be stepped on its own as fast as the computer allows (for testing,
+ * or on a machine with no display).
+ *
+ * The board can be any size from MIN_SIZE to MAX_SIZE boxes on a side, chosen
+ * when the engine is made. It's kept in a BoardStore, so even a board of
+ * tens of thousands of boxes on a side only takes memory where something is.
+ *
+ * Tick - one step of the game, in which the snake moves exactly one box.
+ * Game time - how long the ticks took: each one takes the snake's speed, in
+ * milliseconds, whether or not anybody waits that long between them.
+ *
+ * The window changes the game from its own thread (turns, chaos mode, which
+ * pickups are on) while SnakeGame's thread steps it, so everything that does
+ * either is synchronized: a change always lands between two ticks, never in
+ * the middle of one. That is what lets a ReplayRecorder write down exactly
+ * which tick each change happened before.
+ */
+
+package com.miolean.snake;
+
+import java.io.IOException;
+
+public class SnakeEngine {
+    /*
+     * Representation of the rules of Snake.
+     * Extends: Nothing
+     * Implements: Nothing
+     */
+
+    //Board and items. The board is the actual representation of the playing space
+    //(as opposed to the grid, which is the visual representation) and it contains
+    //arbitrary ints corresponding to items. All of the following constants refer to
+    //the arbitrary values given to the items. They aren't private because SnakeGame
+    //needs them to decide what color to draw. The pickup items are the ones the
+    //game comes with (see PickupRegistry.defaults()); there may be more.
+    private BoardStore board;
+    final static int WALL_ITEM = 1;
+    final static int NO_ITEM = 0;
+    final static int SNAKE_ITEM = -1;
+    final static int SNAKEHEAD_ITEM = -2;
+    //Pickup items
+    final static int FOOD_ITEM = 2;
+    final static int SPEED_ITEM = 3;
+    final static int SLOW_ITEM = 4;
+    final static int POINTS_ITEM = 5;
+    final static int GROWTH_ITEM = 6;
+    final static int LOUSY_ITEM = 7;
+    final static int AWESOME_ITEM = 8;
+    final static int DEATH_ITEM = 9;
+
+    //Passed to step() when the snake should keep going the way it's facing
+    final static int NO_TURN = -1;
+
+    //The snake itself
+    SnakeObject snake;
+    
+    //Every box on the board that changes gets listed here, so that whoever draws the
+    //board only has to redraw what changed. Whoever draws it clears it afterwards.
+    final BoardChanges changes = new BoardChanges(1024);
+
+    //Every empty box on the board, so that new pickups can be placed without searching,
+    //and every pickup on the board, so that they can be found without searching either.
+    //The free cell set takes two ints a box, so a big board does without it and
+    //asks the BoardStore (which counts its empty boxes chunk by chunk) instead. Resetting
+    //the set touches every box, too, where resetting the BoardStore only touches every chunk.
+    private FreeCellSet freeCells;
+    final private static int MAX_DENSE_CELLS = 1 << 16;
+    final PickupIndex pickups;
+    
+    //The kinds of pickup: what they do, and how often each one shows up. Not private
+    //because SnakeWindow turns them on and off (in the menu bar).
+    final PickupRegistry registry;
+    
+    //Option boolean used in chaos mode. It isn't private because SnakeGame shows
+    //it, but mid-game it should only be changed through setChaosMode().
+    boolean chaosMode = false; //Turns on chaos mode
+    
+    //Chaos mode's clock. Pickups get a chance to show up and decay once every CHAOS_MILLIS of game
+    //time, not once a tick, so a fast snake doesn't make the board any more chaotic than a slow one.
+    //CHAOS_MILLIS is the starting speed, so a new game plays the way it always has.
+    final static int CHAOS_MILLIS = 200;
+    private int chaosClock = 0; //Game time since the last chance, in milliseconds
+
+    //Statistic variables with mostly arbitrary start values
+    int speed = 200;
+    int points = 0;
+    private boolean dead = false;
+    private long tick = 0; //Ticks played since the last reset
+    
+    //Metrics (see GameMetrics): ticks until the next one that's timed, and whether this one is.
+    //tick is only added to GameMetrics' count now and then; countedTick is how much of it has been (see countTicks()).
+    private int untilTimed = 1;
+    private boolean timed = false;
+    private long countedTick = 0;
+    
+    //If not null, every change made to the game from outside (see the top of this file)
+    //is written down here, so that the game can be played back later.
+    ReplayRecorder recorder;
+
+    //Size of the board, walls included. The snake starts near the top-left corner, so
+    //the board can't be much smaller than the usual one; board locations are packed into
+    //16 bits (see SnakeObject.pack()), so it can't be much bigger than 30,000 across.
+    final private int WIDTH, HEIGHT;
+    final static int MIN_SIZE = 8;
+    final static int MAX_SIZE = 32767;
+
+    //The one random number generator for this game. Everything random comes from it,
+    //so the same seed (and the same turns) always plays out the same way.
+    private GameRandom generator;
+    
+    public SnakeEngine(int size) {
+        /*
+         * Constructor for SnakeEngines with an unpredictable seed.
+         *
+         * Parameters: size - the length and width of the board, walls included
+         * Returns: Constructed SnakeEngine
+         */
+        this(size, new GameRandom(GameRandom.newSeed()), PickupRegistry.defaults());
+    }
+    public SnakeEngine(int size, GameRandom generator, PickupRegistry registry) {
+        /*
+         * Constructor for SnakeEngines with a square board.
+         *
+         * Parameters:
+         * size - the length and width of the board, walls included
+         * generator - where the engine gets its random numbers from
+         * registry - the kinds of pickup to play with
+         * Returns: Constructed SnakeEngine
+         */
+        this(size, size, generator, registry);
+    }
+    public SnakeEngine(int width, int height, GameRandom generator, PickupRegistry registry) {
+        /*
+         * Constructor for SnakeEngines. The engine starts out ready to play.
+         *
+         * Parameters:
+         * width - the length of the board, walls included
+         * height - the width of the board, walls included
+         * generator - where the engine gets its random numbers from
+         * registry - the kinds of pickup to play with
+         * Returns: Constructed SnakeEngine
+         */
+        if(width < MIN_SIZE || height < MIN_SIZE || width > MAX_SIZE || height > MAX_SIZE) {
+            throw new IllegalArgumentException("board must be " + MIN_SIZE + " to " + MAX_SIZE + " boxes on a side, not "
+                + width + "x" + height);
+        }
+        WIDTH = width;
+        HEIGHT = height;
+        this.generator = generator;
+        this.registry = registry;
+        pickups = new PickupIndex(registry.getMaxItem());
+        board = new BoardStore(WIDTH, HEIGHT);
+        if(WIDTH * HEIGHT <= MAX_DENSE_CELLS) freeCells = new FreeCellSet(WIDTH, HEIGHT);
+        reset();
+    }
+
+    /*
+     *
+     * Game flow: starting over and stepping forward.
+     *
+     */
+    public synchronized void reset() {
+        /*
+         * Puts everything back the way it is at the start of a game: a new snake,
+         * no points, default speed, and a single food pickup.
+         *
+         * Parameters: None
+         * Returns: Nothing
+         */
+        snake = new SnakeObject();
+        resetBoard();
+        stampSnake();
+        points = 0;
+        speed = 200;
+        dead = false;
+        if(GameMetrics.ENABLED) countTicks();
+        tick = 0;
+        countedTick = 0;
+        chaosClock = 0;
+        setItem(5, 5, FOOD_ITEM); //This is always the first pickup
+    }
+    public synchronized int step(int direction) {
+        /*
+         * Plays a single tick: turn (if asked to), move the snake, and deal with whatever
+         * it ran into. Does nothing once the snake is dead; call reset() to play again.
+         *
+         * Parameters: direction - one of SnakeObject's directional constants, or NO_TURN
+         * Returns: The item that the snake ran into this tick
+         */
+        if(dead) return NO_ITEM;
+        long started = 0;
+        if(GameMetrics.ENABLED && --untilTimed == 0) {
+            //One tick in SAMPLE_EVERY is timed, and the ticks since the last one are counted along with it
+            untilTimed = GameMetrics.SAMPLE_EVERY;
+            timed = true;
+            countTicks();
+            started = System.nanoTime();
+        }
+        GameEvents.Tick event = GameEvents.ENABLED ? GameEvents.beginTick() : null;
+        if(direction != NO_TURN) turn(direction);
+        tick++;
+        int millis = speed; //How much game time this tick takes
+
+        //Move the snake, and check the item that the snake just ran over before the
+        //snake is stamped onto the board (which would overwrite it).
+        snake.move();
+        int itemAtHead = checkItemAtHead();
+        updateBoard();
+
+        //If the snake ran into something undesirable (the wall, a deadly pickup, or itself)
+        PickupType eaten = registry.get(itemAtHead);
+        if(itemAtHead == WALL_ITEM || itemAtHead == SNAKE_ITEM || (eaten != null && eaten.deadly)) {
+            dead = true;
+            if(GameMetrics.ENABLED) {
+                GameMetrics.METRICS.deaths.incrementAndGet();
+                countTicks();
+            }
+            if(GameEvents.ENABLED) {
+                String cause = (eaten != null) ? eaten.name : (itemAtHead == WALL_ITEM) ? "Wall" : "Itself";
+                GameEvents.death(cause, tick, snake.getSize(), points, speed, pickups.size());
+            }
+        } else if(eaten != null) {
+            if(GameMetrics.ENABLED) GameMetrics.METRICS.eaten.incrementAndGet(itemAtHead);
+            int sizeBefore = snake.getSize();
+            //assert: itemAtHead is a pickup item that will not kill the snake.
+            //It can't be the head, since it can't be exactly where it was before,
+            //and it can't be anything else, we've already filtered them out.
+
+            //Do whatever this kind of pickup does. (The head has already replaced
+            //the pickup on the board, which took it out of the index.)
+            points += eaten.points;
+            speed += eaten.speedChange;
+            snake.extend(eaten.extendBy);
+
+            //Two ifs: Add a pickup (assuming we haven't reached the max, which occurs in chaos mode) and if the speed is too fast/slow, reset it to the max/min.
+            if(! (chaosMode && pickups.size() >= registry.maxChaosPickups)) addPickup(false);
+            if(speed < 50) speed = 50; //set minimum
+            if(speed > 499) speed = 499; //set maximum
+            if(GameEvents.ENABLED) GameEvents.pickupEaten(eaten.name, snake.getHeadX() - 1, snake.getHeadY() - 1, sizeBefore, points, speed);
+        }
+
+        //If the game is in chaos mode, another item may show up or decay regardless of whether we consume them or not
+        //as long as we haven't reached the max. That's a chance every CHAOS_MILLIS, however many ticks that is,
+        //except that a tick where something was eaten doesn't get one (its time still counts, though).
+        if(chaosMode && !dead) {
+            for(chaosClock += millis; chaosClock >= CHAOS_MILLIS; chaosClock -= CHAOS_MILLIS) {
+                if(eaten != null || pickups.size() >= registry.maxChaosPickups) continue;
+                addPickup(true);
+                removePickup();
+            }
+        }
+        
+        if(GameMetrics.ENABLED && timed) {
+            GameMetrics.METRICS.tickTime.record(System.nanoTime() - started);
+            timed = false;
+        }
+        if(event != null) event.finish(tick, snake.getSize(), speed, pickups.size(), dead);
+        return itemAtHead;
+    }
+    public synchronized boolean turn(int direction) {
+        /*
+         * Points the snake in a new direction, unless that would turn it
+         * straight back into itself.
+         *
+         * Parameters: direction - one of SnakeObject's directional constants
+         * Returns: Whether the snake accepted the turn
+         */
+        if(direction == SnakeObject.opposite(snake.getDirection())) return false;
+        if(direction == snake.getDirection()) return true; //Nothing to change (or write down)
+        snake.changeDirection(direction);
+        if(recorder != null) recorder.turn(tick, direction);
+        return true;
+    }
+    public synchronized void setChaosMode(boolean chaos) {
+        /*
+         * Turns chaos mode on or off, from now on.
+         *
+         * Parameters: chaos - whether the game should be in chaos mode
+         * Returns: Nothing
+         */
+        if(chaosMode == chaos) return;
+        chaosMode = chaos;
+        if(recorder != null) recorder.chaos(tick, chaos);
+    }
+    public synchronized void setPickupEnabled(int item, boolean enabled) {
+        /*
+         * Turns a kind of pickup on or off (see PickupRegistry.setEnabled()).
+         *
+         * Parameters:
+         * item - which kind of pickup
+         * enabled - whether new pickups may be of that kind
+         * Returns: Nothing
+         */
+        registry.setEnabled(item, enabled);
+        if(recorder != null) recorder.pickup(tick, item, enabled);
+    }
+    public synchronized void addBonus(int bonus) {
+        /*
+         * Hands out points that didn't come from a pickup.
+         *
+         * Parameters: bonus - how many points
+         * Returns: Nothing
+         */
+        points += bonus;
+        if(recorder != null) recorder.bonus(tick, bonus);
+    }
+    
+    public synchronized void startRecording(ReplayRecorder recorder) throws IOException {
+        /*
+         * Starts writing the game down, from how it is right now (which should be
+         * just after a reset).
+         *
+         * Parameters: recorder - where to write it
+         * Returns: Nothing
+         */
+        recorder.begin(this);
+        this.recorder = recorder;
+    }
+    public synchronized ReplayRecorder stopRecording() {
+        /*
+         * Stops writing the game down, finishing off the replay with how the game stands.
+         *
+         * Parameters: None
+         * Returns: The recorder that was in use, or null if there wasn't one
+         */
+        ReplayRecorder stopped = recorder;
+        recorder = null;
+        if(stopped != null) stopped.end(tick, points, snake.getSize());
+        return stopped;
+    }
+
+    synchronized void restore(SnakeObject snake, GameRandom generator, long tick, int chaosClock, boolean dead) {
+        /*
+         * Finishes putting back a saved game (see SaveState), which has already filled in
+         * the board, the pickups and the rest of the settings.
+         *
+         * Parameters:
+         * snake - the saved snake
+         * generator - the random number generator, where it was
+         * tick - the ticks that had been played
+         * chaosClock - the game time since chaos mode's last chance (see getChaosClock())
+         * dead - whether the snake was dead
+         * Returns: Nothing
+         */
+        this.snake = snake;
+        this.generator = generator;
+        this.tick = tick;
+        countedTick = tick; //Those were counted (if at all) by whoever played them
+        this.chaosClock = chaosClock;
+        this.dead = dead;
+        changes.markAll();
+    }
+    
+    /*
+     *
+     * Board operations.
+     *
+     */
+    public void updateBoard() {
+        /*
+         * Apply the snake's last move to the board. Only three boxes can have changed:
+         * the box the tail left is empty now, the old head is just part of the body,
+         * and the new head is a snakehead. Must be called exactly once after each move.
+         *
+         * Parameters: None
+         * Returns: Nothing
+         */
+        int vacated = snake.getVacated();
+        if(vacated != SnakeObject.NO_CELL) setItem(SnakeObject.getX(vacated) - 1, SnakeObject.getY(vacated) - 1, NO_ITEM);
+        if(snake.getLength() > 1) {
+            int neck = snake.getPart(1);
+            setItem(SnakeObject.getX(neck) - 1, SnakeObject.getY(neck) - 1, SNAKE_ITEM);
+        }
+        //The head goes last: it may be moving into the box the tail just left
+        setItem(snake.getHeadX() - 1, snake.getHeadY() - 1, SNAKEHEAD_ITEM);
+    }
+    private void stampSnake() {
+        /*
+         * Apply the whole snake to the board, e.g. a new snake on a blank board.
+         *
+         * Parameters: None
+         * Returns: Nothing
+         */
+
+        //The snake is a collection of points, so we can take each of these and
+        //apply a snake item to the corresponding point on the board.
+        for(int i = 0; i < snake.getLength(); i++) {
+            int part = snake.getPart(i);
+            setItem(SnakeObject.getX(part) - 1, SnakeObject.getY(part) - 1, SNAKE_ITEM);
+        }
+        //Make the front one a snakehead item
+        setItem(snake.getHeadX() - 1, snake.getHeadY() - 1, SNAKEHEAD_ITEM);
+    }
+    public void resetBoard() {
+        /*
+         * Removes the snake and pickup items from the board - a blank board.
+         */
+        changes.markAll(); //Practically everything changes, so the whole board needs redrawing
+
+        //The board store knows what a blank board looks like (walls at the edge, nothing
+        //inside), so this is the one time we go around setItem()
+        board.clear();
+        pickups.clear();
+        if(freeCells != null) {
+            freeCells.reset();
+            for(int i = 0; i < WIDTH; i++) {
+                freeCells.remove(i, 0);
+                freeCells.remove(i, HEIGHT - 1);
+            }
+            for(int j = 0; j < HEIGHT; j++) {
+                freeCells.remove(0, j);
+                freeCells.remove(WIDTH - 1, j);
+            }
+        }
+    }
+    private void setItem(int x, int y, int item) {
+        /*
+         * Puts an item on the board. Every change to the board goes through here so
+         * that it can be listed in changes, and so that freeCells and pickups stay up to date.
+         *
+         * Parameters:
+         * x - x value of the board location
+         * y - y value of the board location
+         * item - the item to put there
+         * Returns: Nothing
+         */
+        int old = board.get(x, y);
+        if(old == item) return;
+        if(freeCells != null) {
+            if(item == NO_ITEM) freeCells.add(x, y);
+            else if(old == NO_ITEM) freeCells.remove(x, y);
+        }
+        if(old >= FOOD_ITEM) pickups.remove(x, y); //All pickup items are >= FOOD_ITEM
+        if(item >= FOOD_ITEM) pickups.add(x, y, item);
+        board.set(x, y, item);
+        changes.mark(x, y);
+    }
+    public int checkItemAtHead() {
+        /*
+         * After the snake has been moved, we'll call this to check what item is at
+         * the front point of the snake - the item that the snake just ran into. (it doesn't
+         * work if we call it after updating the board - we must do this right after moving the
+         * snake, otherwise the head will overwrite the item in front of it)
+         *
+         * Parameters: None
+         * Returns: The item that the snake is about to run into
+         */
+        return board.get(snake.getHeadX() - 1, snake.getHeadY() - 1);
+
+    }
+    public boolean addPickup(boolean mayFail) {
+        /*
+         * addPickup() adds a pickup item to a random spot on the board that isn't already occupied.
+         * The single parameter is used in chaos mode, because in that mode, new pickups may show up randomly,
+         * and in this case we definitely don't want it to always work.
+         *
+         * Parameters: mayFail - whether the method should have only a chance of success.
+         * Returns: false if there was no room left on the board for a pickup, true otherwise
+         */
+        if(!(GameMetrics.ENABLED && timed)) return placePickup(mayFail);
+        long started = System.nanoTime();
+        boolean room = placePickup(mayFail);
+        GameMetrics.METRICS.placeTime.record(System.nanoTime() - started);
+        return room;
+    }
+    private boolean placePickup(boolean mayFail) {
+        //Does the work of addPickup() (which times it, sometimes)
+
+        //Choose a location for a new item that isn't occupied. If there isn't one, the snake has
+        //filled up the board; there's nowhere to put a pickup.
+        int newCell = (freeCells != null) ? freeCells.pick(generator) : board.pickFree(generator);
+        if(newCell == SnakeObject.NO_CELL) {
+            if(GameMetrics.ENABLED) GameMetrics.METRICS.placeMisses.incrementAndGet();
+            return false;
+        }
+
+        //If we can fail, we usually do
+        if(mayFail && generator.nextDouble() >= registry.chaosSpawnChance) {
+            if(GameMetrics.ENABLED) GameMetrics.METRICS.placeMisses.incrementAndGet();
+            return true;
+        }
+
+        //Choose which kind of pickup to place. If every kind is turned off, there's nothing to place.
+        int newItem = registry.pick(generator, chaosMode);
+        if(newItem >= FOOD_ITEM) {
+            setItem(SnakeObject.getX(newCell), SnakeObject.getY(newCell), newItem);
+            if(GameMetrics.ENABLED) GameMetrics.METRICS.placed.incrementAndGet(newItem);
+            if(GameEvents.ENABLED) GameEvents.pickupPlaced(registry.get(newItem).name, SnakeObject.getX(newCell), SnakeObject.getY(newCell), pickups.size());
+        } else if(GameMetrics.ENABLED) GameMetrics.METRICS.placeMisses.incrementAndGet();
+        return true;
+    }
+    synchronized void countTicks() {
+        //Adds the ticks played since this was last called to GameMetrics' count. That count is shared between
+        //threads, so it's only done on timed ticks and when a game ends (and by whoever dumps the metrics).
+        GameMetrics.METRICS.ticks.addAndGet(tick - countedTick);
+        countedTick = tick;
+    }
+    public void removePickup() {
+        /*
+         * Has a random chance of removing a pickup from the board. Unlike addPickup(), we don't
+         * need to choose whether it fails, because it is only used in the chaos mode case where it may fail.
+         * (it's used only once, and in that context we do not want it to always succeed)
+         *
+         * Parameters: None
+         * Returns: Nothing
+         */
+
+        //If we don't have enough pickups on the board to spare, then skip it
+        if(pickups.size() <= 1) return;
+
+        //Otherwise, given a small chance...
+        if(generator.nextDouble() < registry.chaosDecayChance) {
+            //Choose a pickup to destroy and destroy it (which also takes it out of the index)
+            int index = pickups.pick(generator);
+            int destroy = pickups.getLocation(index);
+            int type = pickups.getType(index);
+            if(GameMetrics.ENABLED) GameMetrics.METRICS.decayed.incrementAndGet(type);
+            setItem(SnakeObject.getX(destroy), SnakeObject.getY(destroy), NO_ITEM);
+            if(GameEvents.ENABLED) GameEvents.pickupDecayed(registry.get(type).name, SnakeObject.getX(destroy), SnakeObject.getY(destroy), pickups.size());
+        }
+    }
+
+    /*
+     *
+     * Accessor methods.
+     *
+     */
+    public int getItem(int x, int y) {
+        //Returns: The item at (x, y) on the board
+        return board.get(x, y);
+    }
+    BoardStore getBoard() {
+        //Returns: The board itself, for bots to look at. Only the engine (and SaveState) may change it.
+        return board;
+    }
+    FreeCellSet getFreeCells() {
+        //Returns: Every empty box on the board, or null if the board is too big to list them
+        return freeCells;
+    }
+    public int getWidth() {
+        //Returns: The length of the board, walls included
+        return WIDTH;
+    }
+    public int getHeight() {
+        //Returns: The width of the board, walls included
+        return HEIGHT;
+    }
+    public int getAllocatedChunks() {
+        //Returns: How many of the board's chunks are taking up memory
+        return board.getAllocatedChunks();
+    }
+    public int getPickupsOnBoard() {
+        //Returns: The number of pickups on the board
+        return pickups.size();
+    }
+    public GameRandom getGenerator() {
+        //Returns: The random number generator this engine uses
+        return generator;
+    }
+    public boolean isBoardFull() {
+        //Returns: Whether every box on the board is taken, so no pickup can be placed
+        return board.getFreeCount() == 0;
+    }
+    public synchronized long getTick() {
+        //Returns: The number of ticks played since the last reset
+        return tick;
+    }
+    synchronized int getChaosClock() {
+        //Returns: The game time since chaos mode's last chance for a pickup to show up or decay, in milliseconds
+        return chaosClock;
+    }
+    public boolean isDead() {
+        //Returns: Whether the snake has run into something that killed it
+        return dead;
+    }
+}
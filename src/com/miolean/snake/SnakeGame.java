@@ -0,0 +1,622 @@
+/*
+ * Miles Krusniak
+ * SnakeGame.java (Snake)
+ * 
+ * SnakeGame keeps track of everything that happens around the
+ * actual game - timing, input, drawing and high scores. The game itself
+ * (the movement of the snake, placement of items, etc.) is a SnakeEngine.
+ * 
+ * Item - an object on the board, may it be the wall, part of the snake,
+ * food for the snake, or empty space.
+ * Pickup [item] - an object that may be "consumed" by the snake, producing
+ * positive or negative effects.
+ * Chaos mode - a style of Snake where pickup items randomly appear and disappear, as
+ * opposed to the way in which one pickup would appear only after the one before it
+ * was consumed by the snake. In my program, chaos mode may be toggled.
+ */
+
+package com.miolean.snake;
+
+import java.awt.*;
+import java.awt.event.*;
+import javax.swing.*;
+import java.io.*;
+
+public class SnakeGame {
+    /*
+     * Representation of the  Snake game.
+     * Extends: Nothing
+     * Implements: Nothing
+     */
+    
+    //SnakeObject variables
+    SnakeWindow window;
+    SnakeEngine engine; //The game itself - board, snake, pickups and scoring
+    
+    //Option boolean. It isn't private because SnakeWindow uses it (in the menu bar).
+    //The rest of the options change how the game plays, so they live in the engine.
+    boolean wormInsteadOfSnake = false; //Makes the snake brown
+    
+    //The autopilot (see PathDriver). While it's on, it steers instead of the arrow keys, and a game it
+    //played any part of doesn't go in the high scores. When it dies, the next game starts by itself.
+    volatile boolean autopilot = false;
+    private PathDriver pilot;
+    private boolean piloted = false; //Whether the autopilot has steered the game being played
+    final private static int AUTOPILOT_RESTART_MILLIS = 1500;
+    
+    //Timing. The game thread sleeps on the scheduler between steps, and the
+    //window wakes it up (through wake()) whenever the player does something.
+    TickScheduler scheduler = new TickScheduler();
+    
+    //The game runs on a steady clock of STEP_MILLIS steps, whatever the snake's speed. Every step adds
+    //to moveClock, and the snake moves (the engine plays a tick) whenever it has built up the snake's
+    //speed; what's left over counts toward the next move. The window draws at its own rate in between.
+    final private static int STEP_MILLIS = 10;
+    private int moveClock = 0;
+    
+    //The arrow keys pressed, waiting for the game thread to play them one a tick (see InputQueue)
+    private volatile InputQueue input = new InputQueue(InputQueue.DEFAULT_CAPACITY);
+    
+    //High score feature. Every score goes in the log (unless it couldn't be opened), and the
+    //high scores shown are the best few of the kind of game being played (see SnakeScore.getMode()).
+    static SnakeScore[] highScores;
+    SnakeScore currentScore = new SnakeScore(0);
+    private ScoreLog scoreLog;
+    final private static int SHOWN_SCORES = 3;
+    //Which high scores are shown: the mode and how many scores were in the log then
+    private long shownMode = -1, shownCount = -1;
+    
+    //Where high scores were kept before there was a score log. They get moved into the log.
+    final private static File LEGACY_SCORES = new File("com\\miolean\\snake\\scores.mf");
+    
+    //Draws the board onto the grid. The grid shows the part of the board in view, which is never
+    //more than MAX_VIEW boxes on a side; a bigger board scrolls along with the snake.
+    private BoardPainter painter;
+    final private static int MAX_VIEW = 60;
+    
+    //What the window shows. The game thread fills in a RenderState after each tick and hands it over
+    //through frames, and the window draws the newest one on its own thread (see drawFrame()).
+    //hud keeps the text to show under the grid in the next one.
+    RenderBuffer frames;
+    private HudModel hud = new HudModel();
+    //What the window last drew (only the window's thread touches these)
+    private long drawnFrame = -1;
+    private boolean drawnWorm = false;
+    private String shownInfo = "";
+    
+    //Every game is written down as a replay in this folder (see ReplayRecorder), unless it's null
+    private File replayDir;
+    private ReplayRecorder recorder;
+    
+    //A game that's still going when the window is closed is saved here (see SaveState),
+    //and picked up again the next time, unless it's null
+    private File saveFile;
+    private boolean resumed = false;
+    
+    public SnakeGame(int width, int height, long seed, PickupRegistry registry) {
+        /*
+         * Constructor for SnakeGames that don't save games in progress.
+         * 
+         * Parameters:
+         * width - the length of the board, walls included
+         * height - the width of the board, walls included
+         * seed - seed for the game's random numbers
+         * registry - the kinds of pickup to play with
+         * Returns: Constructed SnakeGame
+         */
+        this(width, height, seed, registry, null);
+    }
+    public SnakeGame(int width, int height, long seed, PickupRegistry registry, File saveFile) {
+        /*
+         * Constructor for SnakeGames. Pretty simple, because run() is what does all the work.
+         * If there's a saved game, it's picked up where it was left instead, board size and all.
+         *
+         * Parameters:
+         * width - the length of the board, walls included
+         * height - the width of the board, walls included
+         * seed - seed for the game's random numbers
+         * registry - the kinds of pickup to play with
+         * saveFile - where to save a game in progress when the window is closed, or null to not save it
+         * Returns: Constructed SnakeGame
+         */
+        this.saveFile = saveFile;
+        if(saveFile != null && saveFile.exists()) {
+            SnakeEngine saved = null;
+            try {
+                saved = SaveState.load(saveFile, registry.copy());
+            }
+            catch(IOException e) {
+                System.err.println("Couldn't pick up the saved game: " + e.getMessage());
+            }
+            //It's been picked up (or it's no good), and it will be saved again on the way out. One that can't be
+            //deleted isn't picked up either, or it would be picked up again every time.
+            if(!saveFile.delete() && saveFile.exists()) {
+                System.err.println("Couldn't delete the saved game, so it won't be picked up: " + saveFile);
+            } else if(saved != null) {
+                engine = saved;
+                registry = saved.registry; //With the saved game's pickups turned on and off
+                width = engine.getWidth();
+                height = engine.getHeight();
+                resumed = true;
+            }
+        }
+        if(engine == null) engine = new SnakeEngine(width, height, new GameRandom(seed), registry);
+        pilot = new PathDriver(new GameRandom(seed).split()); //Its own numbers, so the game's are the same with it or without
+        Viewport view = new Viewport(Math.min(width, MAX_VIEW), Math.min(height, MAX_VIEW), width, height);
+        painter = new BoardPainter(view, registry);
+        frames = new RenderBuffer(view.getWidth(), view.getHeight());
+        window = new SnakeWindow(this, view.getWidth(), view.getHeight());
+        highScores = new SnakeScore[SHOWN_SCORES];
+        for(int i = 0; i < highScores.length; i++) highScores[i] = new SnakeScore(0);
+    }
+    public void openScores(File file, int syncPolicy) {
+        /*
+         * Opens the score log that every score is written to, making it if it isn't there.
+         * High scores from before there was a log are moved into it. Without a log, the high
+         * scores only last until the window is closed.
+         *
+         * Parameters:
+         * file - the score log
+         * syncPolicy - how often the log is synced to the disk (see ScoreLog's SYNC constants)
+         * Returns: Nothing
+         */
+        try {
+            File dir = file.getAbsoluteFile().getParentFile();
+            if(dir != null) dir.mkdirs();
+            scoreLog = new ScoreLog(file, syncPolicy);
+            if(scoreLog.getCount() == 0 && LEGACY_SCORES.exists()) {
+                scoreLog.importLegacy(LEGACY_SCORES, PickupRegistry.defaults().getEnabledMask());
+            }
+        }
+        catch(IOException e) {
+            System.err.println("Couldn't open the score log, high scores won't be saved: " + e.getMessage());
+            scoreLog = null;
+        }
+        showHighScores();
+    }
+    
+    /*
+     * 
+     * run() method (category by itself)
+     * 
+     */
+    public void run() {
+        /*
+         * run() does the brunt of the work in the program. It has quite a few variables by itself.
+         * It deals with the actual gametime, controlling the engine and the window.
+         * Why run()? I would usually call it playGame() but I was experimenting with Threads. Now, SnakeGame
+         * could implement Runnable if I wanted it to.
+         * 
+         * Parameters: None
+         * Returns: Nothing
+         */
+        
+        window.setHighScores(highScores);
+        
+        //The following loop will exit only when the JVM does
+        while(true) {
+            showHighScores();
+            window.setHighScores(highScores);
+            //Reset all of the variables, including the snake, and wait for the player to start
+            currentScore = new SnakeScore(0);
+            if(resumed) {
+                //Don't start over, the game was saved partway through. It can't be replayed
+                //(a replay starts from a reset), so it isn't recorded.
+                hud.setStatus(HudModel.RESUMABLE);
+                resumed = false;
+            } else {
+                hud.setStatus(HudModel.READY);
+                stopRecording();
+                engine.reset();
+                startRecording();
+            }
+            input.clear(); //Keys pressed during the last game don't carry over
+            piloted = false;
+            applyBoard(false);
+            while(!window.gameHasStarted) scheduler.awaitSignal();
+            if(recorder != null) recorder.start(engine.getTick());
+            moveClock = 0;
+            scheduler.restart(STEP_MILLIS);
+            
+            //The following loop is in place as long as the game is in "Started" state
+            //This means that the start button has been pressed
+            while(window.gameHasStarted) {
+                //Keep up with the display. The high scores are the ones for the options being played with.
+                //(The text is only put together again when something in it changes; see HudModel.)
+                showHighScores();
+                hud.setHighScore(highScores[0]);
+                hud.setGame(500 - engine.speed, engine.points, engine.snake.getSize(), engine.chaosMode);
+                hud.setAutopilot(autopilot);
+                hud.setStatus(HudModel.PLAYING);
+                
+                //The following loop is in place while the game is paused.
+                if(window.paused) {
+                    hud.setStatus(HudModel.PAUSED);
+                    applyBoard(false);
+                    if(recorder != null) recorder.pause(engine.getTick(), true);
+                    while(window.paused && window.gameHasStarted) scheduler.awaitSignal();
+                    if(recorder != null) recorder.pause(engine.getTick(), false);
+                    scheduler.restart(STEP_MILLIS); //Bide time on pause (the snake is still partway to its next move)
+                    continue;
+                }
+                
+                //Sleep until the next step. If we got woken up early, something changed
+                //in the window, so go back and look at it.
+                if(!scheduler.awaitTick(STEP_MILLIS)) continue;
+                
+                //If it's time to move... (the steps have built up to the snake's speed)
+                moveClock += STEP_MILLIS;
+                if(moveClock >= engine.speed) {
+                    moveClock -= engine.speed;
+                    
+                    //Let the engine play one tick, with the next of the player's turns, or the autopilot's
+                    //instead (they both go through the engine the same way, so a replay records either).
+                    //Keys pressed while the autopilot is steering are dropped.
+                    if(autopilot) {
+                        input.clear();
+                        piloted = true;
+                        engine.step(pilot.nextDirection(engine));
+                    } else engine.step(input.nextTurn(engine.snake.getDirection()));
+                    
+                    //If the snake ran into something undesirable (the wall, the death pickup, or itself)
+                    if(engine.isDead()) {
+                        stopRecording();
+                        
+                        hud.setGame(500 - engine.speed, engine.points, engine.snake.getSize(), engine.chaosMode);
+                        hud.setAutopilot(piloted && autopilot);
+                        hud.setStatus(HudModel.DEAD);
+                        currentScore.points = engine.points;
+                        currentScore.speed = 500 - engine.speed;
+                        currentScore.size = engine.snake.getSize();
+                        currentScore.chaos = engine.chaosMode;
+                        currentScore.items = engine.registry.getEnabledMask();
+                        currentScore.time = System.currentTimeMillis();
+                        applyBoard(true);
+                        
+                        //Nobody was really playing, so the score doesn't count. Let the crash show for a
+                        //moment, then go straight on to the next game (unless the autopilot is turned off).
+                        if(piloted) {
+                            scheduler.restart(AUTOPILOT_RESTART_MILLIS);
+                            while(autopilot && window.gameHasStarted && !scheduler.awaitTick(AUTOPILOT_RESTART_MILLIS)) {
+                            }
+                            if(autopilot && window.gameHasStarted) break;
+                            while(window.gameHasStarted) scheduler.awaitSignal();
+                            continue;
+                        }
+                        
+                        if(changeHighScores() != 0) {
+                            currentScore.playerName = "*YOU*";
+                            window.setHighScores(highScores);
+                            
+                            window.getPlayerName();
+                            while(window.waitingForName) scheduler.awaitSignal();
+                            if(currentScore.playerName.equals("")) currentScore.playerName = "Nobody";
+                        }
+                        addScore(currentScore);
+                        window.setHighScores(highScores);
+                        
+                        //No choice but to press reset. (The window keeps up with changes like snake to worm by itself.)
+                        while(window.gameHasStarted) scheduler.awaitSignal();
+                    } else applyBoard(false); //Something we must do anyway
+                }
+            }
+        }
+    }
+    
+    /*
+     *
+     * Replays.
+     *
+     */
+    public void setReplayDir(File dir) {
+        /*
+         * Chooses where replays of the games are written, from the next game on.
+         *
+         * Parameters: dir - the folder for replays, or null to not write any
+         * Returns: Nothing
+         */
+        replayDir = dir;
+    }
+    private void startRecording() {
+        /*
+         * Starts writing a replay of the game that's about to be played (which has just been reset).
+         * If the replay can't be written, the game is played anyway. The file itself is made
+         * later, by ReplayRecorder's writer thread, so this doesn't wait on the disk.
+         *
+         * Parameters: None
+         * Returns: Nothing
+         */
+        if(replayDir == null) return;
+        try {
+            recorder = new ReplayRecorder(new File(replayDir, "snake-" + System.currentTimeMillis() + ".replay"));
+            engine.startRecording(recorder);
+        }
+        catch(IOException e) {
+            e.printStackTrace();
+            if(recorder != null) recorder.discard();
+            recorder = null;
+        }
+    }
+    private void stopRecording() {
+        /*
+         * Finishes the replay of the game that was being played. A game that never got
+         * started isn't worth keeping, so its replay is thrown away. (Either way, the
+         * writing is left to ReplayRecorder's writer thread.)
+         *
+         * Parameters: None
+         * Returns: Nothing
+         */
+        if(recorder == null) return;
+        engine.stopRecording();
+        if(engine.getTick() == 0) recorder.discard();
+        recorder = null;
+    }
+    
+    public void setBufferedTurns(int turns) {
+        /*
+         * Chooses how many turns can wait to be played. Call it before run(); keys
+         * pressed while it's being changed may be lost.
+         *
+         * Parameters: turns - how many turns can wait (at least one)
+         * Returns: Nothing
+         */
+        input = new InputQueue(turns);
+    }
+    public void setAutopilot(boolean on) {
+        /*
+         * Turns the autopilot on or off, starting with the next tick.
+         *
+         * Parameters: on - whether the autopilot should steer
+         * Returns: Nothing
+         */
+        autopilot = on;
+        window.autopilot.setSelected(on);
+        wake();
+    }
+    public void wake() {
+        /*
+         * Lets the game thread know that something changed in the window (the game was
+         * started, paused, reset, a name was entered, an option was toggled...) so that
+         * it can stop sleeping and take a look.
+         * 
+         * Parameters: None
+         * Returns: Nothing
+         */
+        scheduler.signal();
+    }
+    
+    /*
+     * 
+     * Drawing the board onto the grid.
+     * 
+     */
+    public void applyBoard(boolean dead) {
+        /*
+         * Fills in a RenderState with the part of the board in view and the text under it, and
+         * hands it over to the window to draw (see drawFrame()). Only the game thread calls this.
+         * 
+         * Parameters: dead - whether the snake should show as red (because it is dead).
+         * Returns: Nothing
+         */
+        long started = GameMetrics.ENABLED ? System.nanoTime() : 0;
+        GameEvents.Frame event = GameEvents.ENABLED ? GameEvents.beginFrame() : null;
+        RenderState state = frames.getBack();
+        synchronized(engine) { //The window may be turning pickups on or off
+            painter.capture(engine, state);
+            state.tick = engine.getTick();
+            state.points = engine.points;
+            state.speed = engine.speed;
+            state.size = engine.snake.getSize();
+            state.chaos = engine.chaosMode;
+            
+            //Where the head goes next, and how long until it gets there
+            int next = engine.snake.getNextHead();
+            state.headX = engine.snake.getHeadX() - 1 - state.viewX;
+            state.headY = engine.snake.getHeadY() - 1 - state.viewY;
+            state.nextX = SnakeObject.getX(next) - 1 - state.viewX;
+            state.nextY = SnakeObject.getY(next) - 1 - state.viewY;
+            state.period = Math.max(engine.speed - moveClock, STEP_MILLIS);
+        }
+        state.tickNanos = System.nanoTime();
+        state.moving = !dead && window.gameHasStarted && !window.paused;
+        state.dead = dead;
+        state.info = hud.getText();
+        frames.publish();
+        if(GameMetrics.ENABLED) GameMetrics.METRICS.captureTime.record(System.nanoTime() - started);
+        if(event != null) event.finish(state.frame, state.tick, state.size, engine.pickups.size(), dead);
+    }
+    public void drawFrame() {
+        /*
+         * Draws the newest RenderState the game thread has handed over onto the grid, and
+         * shows its text, with the snake's head partway to its next box. The window's timer
+         * calls this on the event dispatch thread, as often as it likes; only what has
+         * changed since last time is drawn.
+         *
+         * Parameters: None
+         * Returns: Nothing
+         */
+        RenderState state = frames.getFront();
+        boolean worm = wormInsteadOfSnake;
+        if(state.frame != drawnFrame || worm != drawnWorm) {
+            long started = GameMetrics.ENABLED ? System.nanoTime() : 0;
+            int redrawn = painter.paint(state, window.getGrid(), worm);
+            if(GameMetrics.ENABLED) {
+                GameMetrics.METRICS.renderTime.record(System.nanoTime() - started);
+                GameMetrics.METRICS.frames.incrementAndGet();
+                GameMetrics.METRICS.boxesRedrawn.addAndGet(redrawn);
+            }
+            if(state.info != shownInfo) window.setInfo(state.info); //The same String if the text didn't change
+            drawnFrame = state.frame;
+            drawnWorm = worm;
+            shownInfo = state.info;
+        }
+        
+        //Between moves, slide the head into the box it's going to next
+        double fraction = 0;
+        if(state.moving) fraction = Math.min(1, (System.nanoTime() - state.tickNanos) / (state.period * 1000000.0));
+        window.getGrid().setLead(state.nextX, state.nextY, state.headX, state.headY, fraction,
+            worm ? BoardCanvas.WORM_HEAD : BoardCanvas.HEAD);
+    }
+    
+    /*
+     * 
+     * Keep-up methods to be used mid-game.
+     * 
+     */
+    public void dealWithKey(int keyCode) {
+        /*
+         * Interrupts the normal flow of execution because a button has been pressed.
+         * This method decides whether the key pressed was one that does something, and if so, does it.
+         * 
+         * Parameters: keyCode - the code passed to the method that corresponds to a key
+         * Returns: Nothing
+         */
+        
+        //Arrow keys. They wait for the game thread, which plays them one a tick, so that
+        //the snake never turns partway through a move.
+        if(keyCode == KeyEvent.VK_UP) input.offer(SnakeObject.UP);
+        if(keyCode == KeyEvent.VK_DOWN) input.offer(SnakeObject.DOWN);
+        if(keyCode == KeyEvent.VK_LEFT) input.offer(SnakeObject.LEFT);
+        if(keyCode == KeyEvent.VK_RIGHT) input.offer(SnakeObject.RIGHT);
+        
+        //Shortcut keys
+        if(keyCode == KeyEvent.VK_Z) {
+            if(window.gameHasStarted) {
+                // the game is in state unstarted and unpaused
+                window.gameHasStarted = false;
+                window.start.setText("Start");
+                window.paused = false;
+                window.pause.setText("Pause");
+            } else {
+                //Game is in state started and unpaused
+                window.gameHasStarted = true;
+                window.start.setText("Reset");
+                window.paused = false;
+                window.pause.setText("Pause");
+            }
+        }
+        if(keyCode == KeyEvent.VK_X) {
+            if(window.paused){
+                //If the game is already paused, then unpause
+                window.paused = false;
+                window.pause.setText("Pause");
+            } else {
+                //Assert: Game is not in pause (so we should pause it)
+                window.paused = true;
+                window.pause.setText("Resume");
+            }
+        }
+        if(keyCode == KeyEvent.VK_C) {
+            engine.setChaosMode(!engine.chaosMode);
+            window.chaosMode.setSelected(engine.chaosMode);
+        }
+        if(keyCode == KeyEvent.VK_A) setAutopilot(!autopilot);
+        if(keyCode == KeyEvent.VK_M && GameMetrics.ENABLED) {
+            engine.countTicks();
+            System.out.print(GameMetrics.METRICS.dump());
+        }
+    }
+    private int changeHighScores() {
+        return placeScore(highScores, currentScore);
+    }
+    private void showHighScores() {
+        //Shows the best scores of the kind of game being played (only if there's a log; without one, the
+        //high scores are whatever they were left as). They're only looked up again if the kind of game
+        //changed or a score was added since last time.
+        if(scoreLog == null) return;
+        long mode = engine.registry.getEnabledMask() | (engine.chaosMode ? 1 : 0); //Like SnakeScore.getMode()
+        long count = scoreLog.getCount();
+        if(mode == shownMode && count == shownCount) return;
+        highScores = scoreLog.getBest(mode, SHOWN_SCORES);
+        shownMode = mode;
+        shownCount = count;
+    }
+    private void addScore(SnakeScore score) {
+        //Adds a finished game's score to the log. It's written in the background, so this never waits on the disk.
+        if(scoreLog != null) scoreLog.add(score);
+    }
+    static int placeScore(SnakeScore[] scores, SnakeScore score) {
+        /*
+         * Puts a score in its place among the high scores, if it's good enough to be there.
+         * Everything below it moves down one, and the last one falls off.
+         * 
+         * Parameters:
+         * scores - the high scores, best first
+         * score - the new score
+         * Returns: The place it got (1 is first), or 0 if it didn't make it
+         */
+        int i;
+        for(i = scores.length - 1; i >= 0 && scores[i].points < score.points; i--) {
+        }
+        i++;
+        if(i == scores.length) return 0;
+        
+        //assert: i will be the score one below ours if it exists (we will take its place)
+        for(int j = scores.length - 1; j > i; j--) {
+            scores[j] = scores[j - 1];
+        }
+        scores[i] = score;
+        return i + 1; //Place number in human counting
+    }
+    public void saveGame() {
+        /*
+         * Saves the game if it's still going (see SaveState), so that it can be picked up
+         * again next time. Meant for when the window is closed.
+         *
+         * Parameters: None
+         * Returns: Nothing
+         */
+        if(saveFile == null || engine.getTick() == 0 || engine.isDead()) return; //Nothing worth picking up
+        try {
+            File dir = saveFile.getAbsoluteFile().getParentFile();
+            if(dir != null) dir.mkdirs();
+            SaveState.save(engine, saveFile);
+        }
+        catch(IOException e) {
+            e.printStackTrace();
+        }
+    }
+    public void quit() {
+        /*
+         * Saves everything that needs saving and ends the program. The saving happens on a
+         * thread of its own, so that the window (whose thread this is called from) doesn't
+         * hang while the disk catches up.
+         *
+         * Parameters: None
+         * Returns: Nothing
+         */
+        //Hold the game still (the game thread waits while it's paused) so that what's saved is where it was left
+        window.paused = true;
+        wake();
+        window.setVisible(false);
+        new Thread("Snake quitting") {
+            public void run() {
+                saveGame();
+                //Finish the replay too, or throw it away if the game never got started (like stopRecording())
+                ReplayRecorder stopped = engine.stopRecording();
+                if(stopped != null && engine.getTick() == 0) stopped.discard();
+                ReplayRecorder.awaitWrites();
+                saveHighScores();
+                System.exit(0);
+            }
+        }.start();
+    }
+    public void saveHighScores() {
+        //Scores are written to the log as they come; this waits for the last of them, and saves the log's index
+        //so it doesn't have to be read through next time
+        if(scoreLog == null) return;
+        try {
+            scoreLog.close();
+        }
+        catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+    
+    public void doEasterEgg(int num) {
+        if(num == 1 && window.paused) {
+            engine.addBonus(42);
+            window.setInfo("Programmed by Miles Krusniak");
+        }
+    }
+}
\ No newline at end of file
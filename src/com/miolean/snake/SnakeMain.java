@@ -0,0 +1,302 @@
+/*
+ * Miles Krusniak
+ * SnakeMain.java (Snake)
+ * 
+ * SnakeMain is the entry point of the program
+ * and serves only as a driver for SnakeGame, which
+ * does everything.
+ *
+ * Options:
+ * -seed <number> - seed for the random numbers, so that the same moves always play out
+ *                  the same way (the snake.seed system property works too). The seed is
+ *                  printed when it's needed to play the same game again.
+ * -size <n> or <width>x<height> - size of the board in boxes, walls included (the
+ *                                 snake.size system property works too). The default is 30.
+ * -pickups <file> - a pickup config file (see PickupRegistry) to play with instead of the
+ *                   usual pickups (the snake.pickups system property works too)
+ * -headless <ticks> - skip the window entirely and just step a SnakeEngine that many
+ *                     times, as fast as it can
+ * -balance <games> - play that many games with a bot, spread over every combination of
+ *                   chaos mode and the Item menu, and report how they went (see BalanceSimulator)
+ * -arena <snakes> - with -headless, step a SnakeArena with that many bots on the board
+ *                   instead (give it a big board with -size)
+ * -replays <folder> - where to write a replay of every game (the snake.replays system
+ *                     property works too). The default is .snakeredux/replays in the home
+ *                     folder; "none" doesn't write any.
+ * -replay <file> - skip the window and play back a replay, as fast as it can
+ * -seek <tick> - with -replay, stop at that tick and show the board
+ * -save <file> - where to save a game that's still going when the window is closed, to be
+ *                picked up again next time (the snake.save system property works too). The
+ *                default is .snakeredux/snake.save in the home folder; "none" doesn't save.
+ * -scores <file> - the score log, where every score is kept (the snake.scores system property
+ *                  works too). The default is .snakeredux/scores.log in the home folder; "none"
+ *                  keeps high scores only until the window is closed.
+ * -fsync <always|periodic|never> - how often the score log is synced to the disk: after every
+ *                                  write, once a second, or only on the way out (the snake.fsync
+ *                                  system property works too). The default is always.
+ * -turns <n> - how many arrow keys can wait to be played, one a tick, so that quick presses
+ *              aren't lost (the snake.turns system property works too). The default is 3.
+ * -bot <path|greedy|none> - who steers the snake in -headless and -balance: PathDriver,
+ *                           GreedyDriver or nobody (the snake.bot system property works too).
+ *                           The default is path for -balance and none for -headless. In the
+ *                           window, -bot path starts with the autopilot on (A turns it on and off).
+ *
+ * Running with -Dsnake.metrics=true keeps timings and counts of what the game does (see
+ * GameMetrics). They show up through JMX, the headless modes print them at the end, and
+ * M prints them in the window.
+ */
+
+package com.miolean.snake;
+
+public class SnakeMain {
+    public static void main(String[] args) {
+        long seed = Long.getLong("snake.seed", GameRandom.newSeed());
+        boolean seedGiven = System.getProperty("snake.seed") != null;
+        String pickupFile = System.getProperty("snake.pickups");
+        String size = System.getProperty("snake.size", "30");
+        long headlessTicks = -1;
+        int arenaSnakes = 0;
+        long balanceGames = 0;
+        String replayDir = System.getProperty("snake.replays",
+            new java.io.File(System.getProperty("user.home"), ".snakeredux" + java.io.File.separator + "replays").toString());
+        String saveFile = System.getProperty("snake.save",
+            new java.io.File(System.getProperty("user.home"), ".snakeredux" + java.io.File.separator + "snake.save").toString());
+        String scoreFile = System.getProperty("snake.scores",
+            new java.io.File(System.getProperty("user.home"), ".snakeredux" + java.io.File.separator + "scores.log").toString());
+        String fsync = System.getProperty("snake.fsync", "always");
+        int bufferedTurns = Integer.getInteger("snake.turns", InputQueue.DEFAULT_CAPACITY);
+        String botName = System.getProperty("snake.bot");
+        String replayFile = null;
+        long seekTick = -1;
+        for(int i = 0; i + 1 < args.length; i += 2) {
+            if(args[i].equals("-seed")) {
+                seed = Long.parseLong(args[i + 1]);
+                seedGiven = true;
+            }
+            else if(args[i].equals("-size")) size = args[i + 1];
+            else if(args[i].equals("-pickups")) pickupFile = args[i + 1];
+            else if(args[i].equals("-headless")) headlessTicks = Long.parseLong(args[i + 1]);
+            else if(args[i].equals("-arena")) arenaSnakes = Integer.parseInt(args[i + 1]);
+            else if(args[i].equals("-balance")) balanceGames = Long.parseLong(args[i + 1]);
+            else if(args[i].equals("-replays")) replayDir = args[i + 1];
+            else if(args[i].equals("-replay")) replayFile = args[i + 1];
+            else if(args[i].equals("-seek")) seekTick = Long.parseLong(args[i + 1]);
+            else if(args[i].equals("-save")) saveFile = args[i + 1];
+            else if(args[i].equals("-scores")) scoreFile = args[i + 1];
+            else if(args[i].equals("-fsync")) fsync = args[i + 1];
+            else if(args[i].equals("-turns")) bufferedTurns = Integer.parseInt(args[i + 1]);
+            else if(args[i].equals("-bot")) botName = args[i + 1];
+        }
+        
+        //A replay brings its own seed, board and pickups
+        if(replayFile != null) {
+            try {
+                runReplay(new java.io.File(replayFile), seekTick);
+            }
+            catch(java.io.IOException e) {
+                System.err.println("Couldn't play back the replay: " + e.getMessage());
+            }
+            return;
+        }
+        
+        //Headless runs report the seed along with their results. In the window it's only worth printing
+        //when it can't be had any other way: nobody chose it, and the game isn't kept as a replay.
+        if(balanceGames > 0 || headlessTicks >= 0 || (!seedGiven && replayDir.equals("none"))) {
+            System.out.println("Seed: " + seed);
+        }
+        
+        //The size is either one number (a square board) or two with an x between them
+        int width, height;
+        int x = size.toLowerCase().indexOf('x');
+        if(x < 0) width = height = Integer.parseInt(size);
+        else {
+            width = Integer.parseInt(size.substring(0, x));
+            height = Integer.parseInt(size.substring(x + 1));
+        }
+        
+        //Load the pickups, or use the usual ones if there's no file (or it's no good)
+        PickupRegistry registry = PickupRegistry.defaults();
+        if(pickupFile != null) {
+            try {
+                registry = PickupRegistry.load(new java.io.File(pickupFile));
+            }
+            catch(java.io.IOException e) {
+                System.err.println("Couldn't load pickups, using the usual ones: " + e.getMessage());
+            }
+        }
+        
+        GameMetrics.register(registry);
+        
+        //Who steers, if nobody said: the autopilot for balancing, and nobody otherwise
+        int bot = BalanceSimulator.NO_BOT;
+        if(botName == null) bot = (balanceGames > 0) ? BalanceSimulator.PATH_BOT : BalanceSimulator.NO_BOT;
+        else if(botName.equals("path")) bot = BalanceSimulator.PATH_BOT;
+        else if(botName.equals("greedy")) bot = BalanceSimulator.GREEDY_BOT;
+        
+        if(balanceGames > 0) {
+            BalanceSimulator simulator = new BalanceSimulator(width, height, registry);
+            simulator.setBot(bot);
+            long startTime = System.nanoTime();
+            simulator.run(balanceGames, seed, java.util.concurrent.ForkJoinPool.commonPool());
+            simulator.report(System.out);
+            System.out.println("Took " + (System.nanoTime() - startTime) / 1000000 + " ms");
+            if(GameMetrics.ENABLED) System.out.print(GameMetrics.METRICS.dump());
+            return;
+        }
+        if(headlessTicks >= 0 && arenaSnakes > 0) {
+            runArena(headlessTicks, arenaSnakes, width, height, seed, registry);
+            if(GameMetrics.ENABLED) System.out.print(GameMetrics.METRICS.dump());
+            return;
+        }
+        if(headlessTicks >= 0) {
+            runHeadless(headlessTicks, width, height, seed, registry, bot);
+            if(GameMetrics.ENABLED) System.out.print(GameMetrics.METRICS.dump());
+            return;
+        }
+
+        //Initialize and run a new game of Snake.
+        SnakeGame game = new SnakeGame(width, height, seed, registry,
+            saveFile.equals("none") ? null : new java.io.File(saveFile));
+        game.setBufferedTurns(bufferedTurns);
+        if(bot == BalanceSimulator.PATH_BOT) game.setAutopilot(true);
+        if(!replayDir.equals("none")) game.setReplayDir(new java.io.File(replayDir));
+        int syncPolicy = ScoreLog.SYNC_ALWAYS;
+        if(fsync.equals("periodic")) syncPolicy = ScoreLog.SYNC_PERIODIC;
+        else if(fsync.equals("never")) syncPolicy = ScoreLog.SYNC_NEVER;
+        if(!scoreFile.equals("none")) game.openScores(new java.io.File(scoreFile), syncPolicy);
+        game.run();
+    }
+    private static void runHeadless(long ticks, int width, int height, long seed, PickupRegistry registry, int bot) {
+        /*
+         * Plays ticks of Snake with no window, starting over each time the snake dies. With no
+         * bot, nobody plays - the snake goes wherever it's facing. Nothing here touches AWT.
+         *
+         * Parameters:
+         * ticks - how many ticks to play
+         * width - the length of the board, walls included
+         * height - the width of the board, walls included
+         * seed - seed for the game's random numbers
+         * registry - the kinds of pickup to play with
+         * bot - who steers: one of BalanceSimulator's bot constants
+         * Returns: Nothing
+         */
+        GameRandom generator = new GameRandom(seed);
+        SnakeEngine engine = new SnakeEngine(width, height, generator, registry);
+        GreedyDriver greedy = (bot == BalanceSimulator.GREEDY_BOT) ? new GreedyDriver(generator.split()) : null;
+        PathDriver pilot = (bot == BalanceSimulator.PATH_BOT) ? new PathDriver(generator.split()) : null;
+        int games = 1;
+        int best = 0;
+        long startTime = System.nanoTime();
+
+        for(long i = 0; i < ticks; i++) {
+            if(engine.isDead()) {
+                best = Math.max(best, engine.points);
+                engine.reset();
+                games++;
+            }
+            int turn = SnakeEngine.NO_TURN;
+            if(pilot != null) turn = pilot.nextDirection(engine);
+            else if(greedy != null) turn = greedy.nextDirection(engine);
+            engine.step(turn);
+        }
+        if(GameMetrics.ENABLED) engine.countTicks(); //The ones since the last timed tick
+
+        long elapsed = System.nanoTime() - startTime;
+        System.out.println(ticks + " ticks (" + games + " games) in " + (elapsed / 1000000) + " ms, "
+            + (long) (ticks / (elapsed / 1e9)) + " ticks per second, " + engine.getAllocatedChunks() + " board chunks in use");
+        if(bot != BalanceSimulator.NO_BOT) System.out.println("Best score " + Math.max(best, engine.points));
+    }
+    private static void runArena(long ticks, int snakes, int width, int height, long seed, PickupRegistry registry) {
+        /*
+         * Plays ticks of a SnakeArena full of bots with no window, deciding their moves
+         * on every core, and reports how steady the ticks were.
+         * 
+         * Parameters:
+         * ticks - how many ticks to play
+         * snakes - how many bots to put in the arena
+         * width - the length of the board, walls included
+         * height - the width of the board, walls included
+         * seed - seed for the arena's random numbers
+         * registry - the kinds of pickup to play with
+         * Returns: Nothing
+         */
+        SnakeArena arena = new SnakeArena(width, height, new GameRandom(seed), registry,
+            java.util.concurrent.ForkJoinPool.commonPool());
+        for(int i = 0; i < snakes; i++) arena.addBot();
+        long startTime = System.nanoTime();
+        long slowest = 0;
+        
+        for(long i = 0; i < ticks; i++) {
+            long tickStart = System.nanoTime();
+            arena.step();
+            slowest = Math.max(slowest, System.nanoTime() - tickStart);
+        }
+        
+        long elapsed = System.nanoTime() - startTime;
+        int deaths = 0;
+        for(int i = 0; i < snakes; i++) deaths += arena.getDeaths(i);
+        System.out.println(ticks + " ticks of " + snakes + " snakes in " + (elapsed / 1000000) + " ms, "
+            + (long) (ticks / (elapsed / 1e9)) + " ticks per second, slowest tick " + (slowest / 1000) + " us");
+        System.out.println(deaths + " deaths, best score " + arena.getBestPoints());
+    }
+    private static void runReplay(java.io.File file, long seekTick) throws java.io.IOException {
+        /*
+         * Plays back a replay with no window, and reports how the game stands at the end of
+         * it (or at seekTick). A replay that plays out differently than it was recorded means
+         * something in the game isn't deterministic, so that gets reported too.
+         *
+         * Parameters:
+         * file - the replay
+         * seekTick - the tick to stop at, or -1 to play the whole thing
+         * Returns: Nothing
+         */
+        ReplayPlayer player = new ReplayPlayer(file);
+        long startTime = System.nanoTime();
+        if(seekTick >= 0) player.seek(seekTick);
+        else player.playToEnd();
+        long elapsed = System.nanoTime() - startTime;
+        
+        SnakeEngine engine = player.getEngine();
+        System.out.println(engine.getWidth() + "x" + engine.getHeight() + " board, " + player.getEventCount() + " events");
+        System.out.println("Tick " + engine.getTick() + ": " + engine.points + " points, size " + engine.snake.getSize()
+            + (engine.isDead() ? ", dead" : ""));
+        System.out.println("Played back in " + (elapsed / 1000000) + " ms, "
+            + (long) (player.getGameMillis() / Math.max(elapsed / 1e6, 0.001)) + " times as fast as it was played");
+        
+        if(seekTick >= 0) {
+            printBoard(engine);
+        } else if(!player.isFinished()) {
+            System.out.println("The replay was cut off before the game ended");
+        } else if(player.getEndTick() == engine.getTick() && player.getEndPoints() == engine.points
+            && player.getEndSize() == engine.snake.getSize()) {
+            System.out.println("Matches the recorded game");
+        } else {
+            System.out.println("Doesn't match the recorded game, which ended at tick " + player.getEndTick() + " with "
+                + player.getEndPoints() + " points, size " + player.getEndSize());
+        }
+    }
+    private static void printBoard(SnakeEngine engine) {
+        /*
+         * Prints the board as text: # for walls, @ for the snake's head, o for the rest of it,
+         * and pickups as their item numbers (+ above 9). Boards too big to read are left out.
+         *
+         * Parameters: engine - the game to print
+         * Returns: Nothing
+         */
+        if(engine.getWidth() > 120 || engine.getHeight() > 120) return;
+        StringBuilder line = new StringBuilder();
+        for(int j = 0; j < engine.getHeight(); j++) {
+            line.setLength(0);
+            for(int i = 0; i < engine.getWidth(); i++) {
+                int item = engine.getItem(i, j);
+                if(item == SnakeEngine.WALL_ITEM) line.append('#');
+                else if(item == SnakeEngine.SNAKEHEAD_ITEM) line.append('@');
+                else if(item == SnakeEngine.SNAKE_ITEM) line.append('o');
+                else if(item == SnakeEngine.NO_ITEM) line.append('.');
+                else if(item <= 9) line.append((char) ('0' + item));
+                else line.append('+');
+            }
+            System.out.println(line);
+        }
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ * Miles Krusniak
+ * SnakeObject.java (Snake)
+ * 
+ * SnakeObject represents the snake in its namesake game. Mainly it
+ * contains the location (in board boxes) of the snake's parts and
+ * the snake's direction.
+ *
+ * The location is kept in a circular buffer: the head moves backwards around
+ * the array and the tail follows it, so moving the snake only ever touches
+ * the two ends instead of shifting every part down by one.
+ */
+
+package com.miolean.snake;
+
+public class SnakeObject {
+    /*
+     * Representation of the snake in the game - its location, size, and direction.
+     * 
+     * Extends: Nothing
+     * Implements: Nothing
+     */
+    
+    //Directional constants
+    final static int LEFT = 0;
+    final static int RIGHT = 2;
+    final static int UP = 4;
+    final static int DOWN = 3;
+    
+    //Returned by getVacated() when the last move didn't free up a box
+    final static int NO_CELL = -1;
+    
+    //Instance variables. Each part of the snake is one int in location, packed
+    //with x in the high 16 bits and y in the low 16 (see pack()). The parts run
+    //from location[head] (the head) forwards, wrapping around at the end of the array.
+    private int[] location;
+    private int head; //Index of the head in location
+    private int length; //Number of parts the snake actually takes up right now
+    private int size; //Number of parts the snake is growing (or has grown) to
+    private int direction;
+    private int vacated = NO_CELL; //The box the tail moved off of during the last move, if any
+    
+    public SnakeObject() {
+        /*
+         * Constructor for SnakeObjects.
+         * 
+         * Parameters: None
+         * Returns: Constructed SnakeObject
+         */
+        
+        //The snake always starts in the same position, facing the same direction.
+        size = 3;
+        direction = RIGHT;
+        location = new int[16]; //Always a power of two, so wrapping around is just a mask
+        
+        location[0] = pack(4, 4);
+        location[1] = pack(3, 4);
+        location[2] = pack(2, 4);
+        head = 0;
+        length = 3;
+    }
+    public SnakeObject(int x, int y, int direction) {
+        /*
+         * Constructor for SnakeObjects that start somewhere else. The snake starts
+         * out as just a head, and grows to its usual three parts as it moves.
+         *
+         * Parameters:
+         * x - x value of the head
+         * y - y value of the head
+         * direction - the direction the snake starts out facing
+         * Returns: Constructed SnakeObject
+         */
+        size = 3;
+        this.direction = direction;
+        location = new int[16];
+        location[0] = pack(x, y);
+        head = 0;
+        length = 1;
+    }
+    SnakeObject(java.nio.IntBuffer parts, int length, int size, int direction) {
+        /*
+         * Constructor for SnakeObjects that were saved (see SaveState).
+         *
+         * Parameters:
+         * parts - the packed location of each part, head first
+         * length - how many parts there are
+         * size - the size the snake is growing (or has grown) to
+         * direction - the direction the snake is facing
+         * Returns: Constructed SnakeObject
+         */
+        this.size = size;
+        this.direction = direction;
+        location = new int[Math.max(16, Integer.highestOneBit(Math.max(length - 1, 1)) << 1)];
+        parts.get(location, 0, length);
+        head = 0;
+        this.length = length;
+    }
+    
+    /*
+     * 
+     * Following are "behavior" methods.
+     * 
+     */
+    public void extend(int extendBy) {
+        /*
+         * Extends the snake object by extendBy units. Nothing moves right away;
+         * the snake "extends" from its tail as it moves.
+         * 
+         * Parameters: extendBy - the number of units to extend the snake by.
+         * Returns: Nothing
+         */
+        size += extendBy;
+    }
+    public void move() {
+        /*
+         * Moves the snake in the direction specified by the instance variable of the same name.
+         * 
+         * Parameters: None
+         * Returns: Nothing
+         */
+        int mask = location.length - 1;
+        int newHead = getNextHead();
+        
+        if(length < size) {
+            //Still growing: the tail stays where it is.
+            if(length == location.length) {
+                grow();
+                mask = location.length - 1;
+            }
+            length++;
+            vacated = NO_CELL;
+        } else {
+            //The last point will be consumed - the snake has moved off that tile.
+            //The new head goes in the slot right before the old one, which (if the array is full)
+            //is where the tail is, so remember the tail first.
+            vacated = location[(head + length - 1) & mask];
+        }
+        head = (head - 1) & mask;
+        location[head] = newHead;
+    }
+    public int getNextHead() {
+        /*
+         * Works out where the head will be after the next move, without moving.
+         *
+         * Parameters: None
+         * Returns: The packed location the head is about to move into
+         */
+        int x = getX(location[head]);
+        int y = getY(location[head]);
+        
+        //Depending on direction, the "head" of the snake will extend in a certain direction.
+        if(direction == LEFT) x--;
+        if(direction == RIGHT) x++;
+        if(direction == UP) y--;
+        if(direction == DOWN) y++;
+        return pack(x, y);
+    }
+    private void grow() {
+        /*
+         * Doubles the room in the location array, straightening the snake out at the start of it.
+         *
+         * Parameters: None
+         * Returns: Nothing
+         */
+        int mask = location.length - 1;
+        int[] newLocation = new int[location.length * 2];
+        for(int i = 0; i < length; i++) {
+            newLocation[i] = location[(head + i) & mask];
+        }
+        location = newLocation;
+        head = 0;
+    }
+    
+    /*
+     * 
+     * Following are mutator and accessor methods.
+     * 
+     */
+    public void changeDirection(int direction) {
+        //Meant to be used with directional constants in this class
+        this.direction = direction;
+    }
+    public void changeSize(int increment) {
+        //A hard change for the size, not used in this program
+        size += increment;
+    }
+    public Cell[] getLocation() {
+        /*
+         * Makes an array of the snake's location, head first. This makes a new array every
+         * time, so anything that runs every tick should use getLength() and getPart() instead.
+         *
+         * Parameters: None
+         * Returns: A Cell for each part of the snake, head first
+         */
+        Cell[] cells = new Cell[length];
+        for(int i = 0; i < length; i++) {
+            int part = getPart(i);
+            cells[i] = new Cell(getX(part), getY(part));
+        }
+        return cells;
+    }
+    public int getPart(int i) {
+        //Returns: The packed location of part i of the snake (0 is the head)
+        return location[(head + i) & (location.length - 1)];
+    }
+    public int getLength() {
+        //Returns: The number of parts the snake takes up right now (it may still be growing into its size)
+        return length;
+    }
+    public int getHeadX() {
+        //Returns: The x value of the snake's head
+        return getX(location[head]);
+    }
+    public int getHeadY() {
+        //Returns: The y value of the snake's head
+        return getY(location[head]);
+    }
+    public int getVacated() {
+        //Returns: The packed location the tail moved off of in the last move, or NO_CELL if it didn't move
+        return vacated;
+    }
+    public int getDirection() {
+        //Returns: The direction instance variable of this SnakeObject.
+        return direction;
+    }
+    public int getSize() {
+        return size;
+    }
+    
+    static int opposite(int direction) {
+        //Returns: The direction straight back from direction
+        if(direction == LEFT) return RIGHT;
+        if(direction == RIGHT) return LEFT;
+        if(direction == UP) return DOWN;
+        return UP;
+    }
+    
+    /*
+     *
+     * Packing locations into ints.
+     *
+     */
+    static int pack(int x, int y) {
+        //Returns: x and y packed into one int
+        return (x << 16) | y;
+    }
+    static int getX(int packed) {
+        //Returns: The x value of a packed location
+        return packed >>> 16;
+    }
+    static int getY(int packed) {
+        //Returns: The y value of a packed location
+        return packed & 0xFFFF;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,28 @@
+package com.miolean.snake;
+
+import java.io.*;
+public class SnakeScore
+implements Serializable {
+    
+    //Scores used to be saved with Java serialization (before they went in a ScoreLog),
+    //and the old files can still be read as long as this doesn't change
+    private static final long serialVersionUID = 7632808076599411150L;
+    
+    int points;
+    int size;
+    int speed;
+    boolean chaos;
+    String playerName;
+    long items; //The pickups that were turned on, one bit for each item (see PickupRegistry.getEnabledMask())
+    long time; //When the game ended, in milliseconds since 1970
+    
+    public SnakeScore(int points) {
+        this.points = points;
+        this.playerName = "Nobody";
+    }
+    
+    public long getMode() {
+        //Returns: Which kind of game this was: the items bits, with chaos mode in bit 0 (which no item uses)
+        return items | (chaos ? 1 : 0);
+    }
+}
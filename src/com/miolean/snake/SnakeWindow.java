@@ -11,6 +11,8 @@
  * result I like to say "this.method()" in these cases (instead of just method()).
  */
 
+package com.miolean.snake;
+
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
@@ -25,9 +27,11 @@ public class SnakeWindow extends JFrame {
     //Game status variables.     
     //Not private because they are accessed,
     //edited, etc. by SnakeGame, and it's impractical to make accessor/mutator methods
-    boolean gameHasStarted = false; //Whether
-    boolean paused = false;
-    boolean waitingForName = false;
+    //They are volatile because the game thread sleeps until we wake it up and
+    //then reads them, so it has to see what the listener wrote.
+    volatile boolean gameHasStarted = false; //Whether
+    volatile boolean paused = false;
+    volatile boolean waitingForName = false;
     
     //SnakeObjects.
     private SnakeListener listener; //the listener to apply to the window components
@@ -36,7 +40,7 @@ public class SnakeWindow extends JFrame {
     //Components
     //Most of these speak for themselves. Buttons aren't private in this case
     //because we need to change their text in some cases.
-    private Box[][] grid; //Grid of special JPanels to draw on (display the game)
+    private BoardCanvas grid; //The grid of boxes to draw on (display the game)
     JButton start; //Start (and Reset) button
     JButton pause; //Pause (and Resume) button
     private JButton scores;
@@ -48,9 +52,11 @@ public class SnakeWindow extends JFrame {
     private JMenu optionMenu; //'Option' menu setting
     private JMenu itemMenu; //'Item' menu setting.
     
-    //CheckBoxMenuItems: The first group in 'Item', the second group in 'Option'
-    JCheckBoxMenuItem speedItem, slowItem, growthItem, pointsItem, lousyItem, awesomeItem, deathItem;
-    JCheckBoxMenuItem chaosMode, wormInsteadOfSnake;
+    //CheckBoxMenuItems: The first group in 'Item' (one for each kind of pickup that can be
+    //turned on and off, along with which kind it is), the second group in 'Option'
+    private JCheckBoxMenuItem[] itemToggles;
+    private PickupType[] toggledTypes;
+    JCheckBoxMenuItem chaosMode, wormInsteadOfSnake, autopilot;
     
     //High scores window and components
     JDialog scoresWindow;
@@ -63,6 +69,10 @@ public class SnakeWindow extends JFrame {
     private final int BOX_SIZE = 10; //Pixel size of each box in the grid
     private final int GRID_LOC_Y = 40, GRID_LOC_X = 20; //Grid top-right-corner location
     
+    //Draws the game, at about 60 frames a second however fast the snake is going (see SnakeGame.drawFrame())
+    private Timer frameTimer;
+    private final int FRAME_MILLIS = 16;
+    
     public SnakeWindow(SnakeGame game, int gridSizeX, int gridSizeY) {
         /*
          * Constructor for SnakeWindow object, which is a kind of JFrame
@@ -74,8 +84,8 @@ public class SnakeWindow extends JFrame {
          * gridSizeY - number of boxes of grid width
          * Returns: a constructed SnakeWindow
          * 
-         * The number-of-boxes-in-the-grid variables are mostly unused, but available - the
-         * grid may be resized but only from within the source.
+         * The grid shows the part of the board in the game's viewport, so it's only as big
+         * as the board when the board is small enough to fit.
          */
         
         //Step 1: Deal with SnakeObjects
@@ -85,6 +95,7 @@ public class SnakeWindow extends JFrame {
         //Step 2: Get some more sizing variables ready
         gridX = (BOX_SIZE * gridSizeX) + 2 * GRID_LOC_X; //Total size of the grid: 2 times the offset plus
         gridY = (BOX_SIZE * gridSizeY) + 2 * GRID_LOC_Y; //the grid size times the number of boxes
+        gridY = Math.max(gridY, 380); //Still leave room for the buttons and such on the right
         
         //Step 3: Some general window settings
         this.setTitle("Snake"); //Window name
@@ -131,8 +142,8 @@ public class SnakeWindow extends JFrame {
         info.setLocation(GRID_LOC_X, gridY - 40);
         this.add(info);
         
-        controls = new JTextArea("→ - Right\n← - Left\n↑ - Up\n↓ - Down\n\nZ - Start/Reset\nX - Pause/Resume\nC - Chaos mode");
-        controls.setSize(110, 160);
+        controls = new JTextArea("→ - Right\n← - Left\n↑ - Up\n↓ - Down\n\nZ - Start/Reset\nX - Pause/Resume\nC - Chaos mode\nA - Autopilot");
+        controls.setSize(110, 180);
         controls.setFont(new Font("Serif", Font.PLAIN, 14));
         controls.setLocation(gridX + 30, GRID_LOC_Y + 110);
         controls.setEditable(false);
@@ -204,14 +215,18 @@ public class SnakeWindow extends JFrame {
         //Step 8: Deal with the grid. It've also done this in a separate method, createGrid().
         createGrid(gridSizeX, gridSizeY);
         setVisible(true);
+        
+        //Step 9: Start drawing
+        frameTimer = new Timer(FRAME_MILLIS, listener);
+        frameTimer.start();
     }
     private void setUpMenu() {
         /*
          * Sets up the menu components of the window. This keeps 
          * the construction of the window a bit more organized.
-         * Since there are so many menu items, I did consider using an array,
-         * but the fact remains that there are enough arbitrary values (i.e. tooltip
-         * text, name, etc) that I would rather deal with them one by one.
+         * The 'Item' menu has one option for each kind of pickup that can be turned
+         * on and off, so those come from the game's PickupRegistry; the 'Option'
+         * options I deal with one by one.
          * 
          * Parameters: None
          * Returns: Nothing
@@ -228,103 +243,80 @@ public class SnakeWindow extends JFrame {
         menuBar.add(itemMenu);
         
         //6b: Initialize the menu options for both menus in the menu bar.
-        speedItem = new JCheckBoxMenuItem("Speed item");
-        slowItem = new JCheckBoxMenuItem("Slow item");
-        growthItem = new JCheckBoxMenuItem("Growth item");
-        pointsItem = new JCheckBoxMenuItem("Points item");
-        lousyItem = new JCheckBoxMenuItem("Loss item");
-        awesomeItem = new JCheckBoxMenuItem("Boost item");
-        deathItem = new JCheckBoxMenuItem("Death item");
+        java.util.List<PickupType> toggleable = new java.util.ArrayList<PickupType>();
+        for(PickupType type : game.engine.registry.getTypes()) {
+            if(type.toggleable) toggleable.add(type);
+        }
+        itemToggles = new JCheckBoxMenuItem[toggleable.size()];
+        toggledTypes = toggleable.toArray(new PickupType[toggleable.size()]);
+        for(int i = 0; i < itemToggles.length; i++) {
+            itemToggles[i] = new JCheckBoxMenuItem(toggledTypes[i].name);
+        }
         chaosMode = new JCheckBoxMenuItem("Chaos mode");
         wormInsteadOfSnake = new JCheckBoxMenuItem("Worm instead of snake");
+        autopilot = new JCheckBoxMenuItem("Autopilot");
         
         //6c: Add all of the menu options to the menu they belong to.
         optionMenu.add(chaosMode);
         optionMenu.add(wormInsteadOfSnake);
-        itemMenu.add(speedItem);
-        itemMenu.add(slowItem);
-        itemMenu.add(growthItem);
-        itemMenu.add(pointsItem);
-        itemMenu.add(lousyItem);
-        itemMenu.add(awesomeItem);
-        itemMenu.add(deathItem);
+        optionMenu.add(autopilot);
+        for(JCheckBoxMenuItem toggle : itemToggles) itemMenu.add(toggle);
         
         //6d: Listen to the menu options
-        speedItem.addActionListener(listener);
-        slowItem.addActionListener(listener);
-        growthItem.addActionListener(listener);
-        pointsItem.addActionListener(listener);
-        lousyItem.addActionListener(listener);
-        awesomeItem.addActionListener(listener);
-        deathItem.addActionListener(listener);
+        for(JCheckBoxMenuItem toggle : itemToggles) toggle.addActionListener(listener);
         chaosMode.addActionListener(listener);
         wormInsteadOfSnake.addActionListener(listener);
+        autopilot.addActionListener(listener);
         
         //6e: Set default selection values for the options corresponding
-        //to the default boolean values in the SnakeGame
-        speedItem.setSelected(true);
-        slowItem.setSelected(true);
-        growthItem.setSelected(true);
-        pointsItem.setSelected(true);
-        lousyItem.setSelected(true);
-        awesomeItem.setSelected(true);
-        deathItem.setSelected(true);
-        chaosMode.setSelected(false);
+        //to the default values in the SnakeGame
+        for(int i = 0; i < itemToggles.length; i++) itemToggles[i].setSelected(toggledTypes[i].enabled);
+        chaosMode.setSelected(game.engine.chaosMode); //Not always off - a saved game may have been picked up
         wormInsteadOfSnake.setSelected(false);
+        autopilot.setSelected(game.autopilot);
         
         //6f: Set tooltips for each menu option.
-        speedItem.setToolTipText("Cyan: Speeds the snake up");
-        slowItem.setToolTipText("Magenta: Slows the snake down");
-        growthItem.setToolTipText("Green: Adds six segments to the snake");
-        pointsItem.setToolTipText("Brown: Worth lots of points");
-        lousyItem.setToolTipText("Dark gray: Slows snake down, worth negative points");         
-        awesomeItem.setToolTipText("White: Speeds snake up, worth lots of points");
-        deathItem.setToolTipText("Red: Kills the snake, chaos mode only");
+        for(int i = 0; i < itemToggles.length; i++) itemToggles[i].setToolTipText(toggledTypes[i].description);
         chaosMode.setToolTipText("Items appear and disappear randomly");
         wormInsteadOfSnake.setToolTipText("Change the snake to a worm");
+        autopilot.setToolTipText("Let the computer play (its scores don't count)");
     }
     private void createGrid(int sizeX, int sizeY) {
         /*
-         * Uses a double loop to create a grid out of boxes.
-         * Each box is added individually to the window (they aren't a
-         * part of a bigger component or anything).
+         * Creates the grid. The whole grid is a single BoardCanvas; it used to be a Box
+         * per square, but Swing slows down a lot with that many components.
          * 
          * Parameters:
-         * sizeX - number of boxes of grid length, unimplemented in the actual game
-         * sizeY - number of boxes of grid width, unimplemented in the actual game
+         * sizeX - number of boxes of grid length
+         * sizeY - number of boxes of grid width
          * Returns: Nothing
          */
         
-        grid = new Box[sizeX][sizeY]; //initialize the 2D array
-        //Double loop to access every item in the grid
-        for(int i = 0; i < sizeX; i++) {
-            for(int j = 0; j < sizeY; j++) {
-                //For each item in the grid...
-                grid[i][j] = new Box(BOX_SIZE, BOX_SIZE); //Initialize it as a square box
-                grid[i][j].setBackground(Color.BLUE); //Make it blue by default (debugging)
-                grid[i][j].setLocation(i * BOX_SIZE + GRID_LOC_X, j * BOX_SIZE + GRID_LOC_Y); //Set it to a location relative to the rest of the grid
-                grid[i][j].setSize(BOX_SIZE, BOX_SIZE); //Make it the right size
-                this.add(grid[i][j]); //Add it to the window
-            }
-        }
+        grid = new BoardCanvas(sizeX, sizeY, BOX_SIZE, BoardPainter.pickupColors(game.engine.registry));
+        grid.setLocation(GRID_LOC_X, GRID_LOC_Y); //Set it to a location relative to the rest of the window
+        this.add(grid); //Add it to the window
+    }
+    public BoardCanvas getGrid() {
+        //Returns: The grid of boxes the game is drawn on
+        return grid;
     }
-    public void setBoxColor(int x, int y, Color color) {
+    public void setBoxColor(int x, int y, int color) {
         /*
          * Changes the color of a single box in the grid at (x, y)
          * 
          * Parameters:
          * x - x value of grid location to change
          * y - y value of grid location to change
-         * color - the color to change it to
+         * color - the BoardCanvas palette index of the color to change it to
          * Returns: Nothing
          */
         
-        grid[x][y].setBackground(color);
+        grid.setBoxColor(x, y, color);
         
     }
     public void setInfo(String text) {
         /*
-         * Set the text of the label below the grid.
+         * Set the text of the label below the grid. Only call this on the event dispatch thread.
          * 
          * Parameters: text - the text to change it to
          * Returns: Nothing
@@ -333,21 +325,33 @@ public class SnakeWindow extends JFrame {
         
     }
     public void setHighScores(SnakeScore[] scores) {
+        //Can be called from any thread; the text is changed on the event dispatch thread
         String newText = "";
         for(int i = 0; i < scores.length; i++) {
             if(scores[i].playerName == null) newText += (i + 1) + ": ----------\n";
             else newText += (i + 1) + ": " + scores[i].playerName + " [Points: " + scores[i].points + "  Size: " + scores[i].size + ((scores[i].chaos)? "  *chaos" : "") + "]\n";
         }
-        scoresText.setText(newText);
+        final String text = newText;
+        SwingUtilities.invokeLater(new Runnable() {
+            public void run() {
+                scoresText.setText(text);
+            }
+        });
     }
     public void getPlayerName() {
-        scoresField.setVisible(true);
-        scoresField.setFocusable(true);
-        scoresWindow.setVisible(true);
-        scoresText.setText(scoresText.getText() + "\nHigh score!\nEnter your name:");
-        scoresWindow.requestFocus();
-        scoresWindow.setModal(true);
+        //Can be called from any thread. We're waiting for the name from now on, even before the window shows.
         waitingForName = true;
+        SwingUtilities.invokeLater(new Runnable() {
+            public void run() {
+                scoresField.setText("");
+                scoresField.setVisible(true);
+                scoresField.setFocusable(true);
+                scoresWindow.setVisible(true);
+                scoresText.setText(scoresText.getText() + "\nHigh score!\nEnter your name:");
+                scoresWindow.requestFocus();
+                scoresWindow.setModal(true);
+            }
+        });
     }
     
     private class SnakeListener implements
@@ -378,6 +382,7 @@ public class SnakeWindow extends JFrame {
          */
         public void keyPressed(KeyEvent e) {
             game.dealWithKey(e.getKeyCode());
+            game.wake();
         }
         public void keyReleased(KeyEvent e) {
         }
@@ -399,6 +404,12 @@ public class SnakeWindow extends JFrame {
          */
         public void actionPerformed(ActionEvent e) {
             
+            //Time to draw. Nothing changed in the game, so there's no need to wake it up.
+            if(e.getSource() == frameTimer) {
+                game.drawFrame();
+                return;
+            }
+            
             //Deal with start button
             //Start button overrides pause - pressing it always cuases the game to unpause
             if(e.getSource() == start) {
@@ -462,17 +473,17 @@ public class SnakeWindow extends JFrame {
             }
             
             //Deal with menu options
-            //These variables are booleans that are held within the SnakeGame
+            //These are booleans that are held within the SnakeGame (and its engine and pickup registry)
             //They can be marked on or off depending on input
-            if(e.getSource() == speedItem) game.speedItemEnabled = speedItem.isSelected();
-            if(e.getSource() == slowItem) game.slowItemEnabled = slowItem.isSelected();
-            if(e.getSource() == pointsItem) game.pointsItemEnabled = pointsItem.isSelected();
-            if(e.getSource() == growthItem) game.growthItemEnabled = growthItem.isSelected();
-            if(e.getSource() == lousyItem) game.lousyItemEnabled = lousyItem.isSelected();
-            if(e.getSource() == awesomeItem) game.awesomeItemEnabled = awesomeItem.isSelected();
-            if(e.getSource() == deathItem) game.deathItemEnabled = deathItem.isSelected();
-            if(e.getSource() == chaosMode) game.chaosMode = chaosMode.isSelected();
+            for(int i = 0; i < itemToggles.length; i++) {
+                if(e.getSource() == itemToggles[i]) game.engine.setPickupEnabled(toggledTypes[i].item, itemToggles[i].isSelected());
+            }
+            if(e.getSource() == chaosMode) game.engine.setChaosMode(chaosMode.isSelected());
             if(e.getSource() == wormInsteadOfSnake) game.wormInsteadOfSnake = wormInsteadOfSnake.isSelected();
+            if(e.getSource() == autopilot) game.autopilot = autopilot.isSelected();
+            
+            //Whatever it was, the game thread may be sleeping until something like this happens
+            game.wake();
         }
         
         /*
@@ -492,6 +503,7 @@ public class SnakeWindow extends JFrame {
         public void windowIconified(WindowEvent e){
             paused = true;
             pause.setText("Resume");
+            game.wake();
         }
         public void windowClosed(WindowEvent e){
         }
@@ -503,10 +515,9 @@ public class SnakeWindow extends JFrame {
                 waitingForName = false;
                 scoresField.setVisible(false);
                 scoresWindow.setModal(false);
+                game.wake();
             } else {
-                gameHasStarted = false;
-                game.saveHighScores();
-                System.exit(0);
+                game.quit();
             }
         }
     }
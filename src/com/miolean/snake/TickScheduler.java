@@ -0,0 +1,141 @@
+/*
+ * Miles Krusniak
+ * TickScheduler.java (Snake)
+ *
+ * TickScheduler is what the game thread sleeps on. Instead of checking the
+ * clock (or the start and pause buttons) over and over as fast as it can,
+ * the game thread parks here until either the next tick is due or
+ * something happens in the window that it needs to know about.
+ */
+
+package com.miolean.snake;
+
+import java.util.concurrent.locks.LockSupport;
+
+public class TickScheduler {
+    /*
+     * Puts the game thread to sleep between ticks and wakes it up for window events.
+     *
+     * Extends: Nothing
+     * Implements: Nothing
+     */
+
+    //The thread that waits here. Only one thread (the game thread) ever waits on a scheduler.
+    private volatile Thread waiter;
+    //Set by signal(), cleared once the waiting thread has noticed it
+    private volatile boolean signalled = false;
+
+    //When the next tick is due, in System.nanoTime() terms
+    private long nextTick;
+
+    //Timing statistics: how late each tick actually started compared to when it was due
+    private long ticks = 0;
+    private long totalLateness = 0;
+    private long maxLateness = 0;
+
+    public TickScheduler() {
+        /*
+         * Constructor for TickSchedulers.
+         *
+         * Parameters: None
+         * Returns: Constructed TickScheduler
+         */
+        nextTick = System.nanoTime();
+    }
+
+    /*
+     *
+     * Methods for the game thread.
+     *
+     */
+    public void awaitSignal() {
+        /*
+         * Parks the calling thread until some other thread calls signal(). Returns
+         * straight away if there was a signal since the last time we waited.
+         *
+         * Parameters: None
+         * Returns: Nothing
+         */
+        waiter = Thread.currentThread();
+        while(!signalled) LockSupport.park(this);
+        signalled = false;
+    }
+    public void restart(int period) {
+        /*
+         * Starts counting ticks over from now, e.g. when the game starts or is resumed.
+         * The first tick is due one period from now.
+         *
+         * Parameters: period - milliseconds until the first tick
+         * Returns: Nothing
+         */
+        nextTick = System.nanoTime() + period * 1000000L;
+    }
+    public boolean awaitTick(int period) {
+        /*
+         * Parks the calling thread until the next tick is due or until it is signalled,
+         * whichever happens first. Ticks are due a fixed period after the one before
+         * (not after whenever we happened to wake up), so small delays don't add up.
+         *
+         * Parameters: period - milliseconds from this tick to the one after it
+         * Returns: true if a tick is due now, false if we were woken up early by a signal
+         */
+        waiter = Thread.currentThread();
+        long now = System.nanoTime();
+        while(now - nextTick < 0) {
+            if(signalled) {
+                signalled = false;
+                return false;
+            }
+            LockSupport.parkNanos(this, nextTick - now);
+            now = System.nanoTime();
+        }
+
+        //Assert: a tick is due. Keep track of how late we are, then schedule the next one.
+        long lateness = now - nextTick;
+        ticks++;
+        totalLateness += lateness;
+        if(lateness > maxLateness) maxLateness = lateness;
+
+        //If we've somehow fallen more than a whole tick behind, don't try to catch up
+        if(lateness > period * 1000000L) nextTick = now + period * 1000000L;
+        else nextTick += period * 1000000L;
+        return true;
+    }
+
+    /*
+     *
+     * Methods for other threads (the window's listener, mainly).
+     *
+     */
+    public void signal() {
+        /*
+         * Wakes the game thread up (or makes its next wait return immediately).
+         * Used whenever the window changes something the game thread is waiting on.
+         *
+         * Parameters: None
+         * Returns: Nothing
+         */
+        signalled = true;
+        Thread t = waiter;
+        if(t != null) LockSupport.unpark(t);
+    }
+
+    /*
+     *
+     * Accessor methods.
+     *
+     */
+    public long getTicks() {
+        //Returns: The number of ticks this scheduler has let through
+        return ticks;
+    }
+    public long getAverageLateness() {
+        //Returns: How late a tick started, on average, in nanoseconds
+        if(ticks == 0) return 0;
+        return totalLateness / ticks;
+    }
+    public long getMaxLateness() {
+        //Returns: The latest any tick has started, in nanoseconds
+        return maxLateness;
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Miles Krusniak
+ * Viewport.java (Snake)
+ *
+ * A Viewport is the part of the board that shows in the window. On the
+ * usual board that's all of it, but a big board can't fit on the screen,
+ * so the window shows a window-sized piece of it around the snake's head
+ * instead. The piece jumps to recenter on the head whenever the head gets
+ * too close to its edge, rather than scrolling every tick, so most ticks
+ * still only redraw the boxes that changed.
+ */
+
+package com.miolean.snake;
+
+public class Viewport {
+    /*
+     * The visible region of the board, following the snake's head.
+     *
+     * Extends: Nothing
+     * Implements: Nothing
+     */
+    
+    //Size of the region and of the whole board, in boxes
+    private int width, height;
+    private int boardWidth, boardHeight;
+    
+    //Board location of the region's top-left box
+    private int x = 0, y = 0;
+    
+    public Viewport(int width, int height, int boardWidth, int boardHeight) {
+        /*
+         * Constructor for Viewports. The region starts in the top-left corner of the board.
+         *
+         * Parameters:
+         * width - number of boxes of region length (no more than boardWidth)
+         * height - number of boxes of region width (no more than boardHeight)
+         * boardWidth - number of boxes of board length
+         * boardHeight - number of boxes of board width
+         * Returns: Constructed Viewport
+         */
+        this.width = width;
+        this.height = height;
+        this.boardWidth = boardWidth;
+        this.boardHeight = boardHeight;
+    }
+    
+    public boolean follow(int headX, int headY) {
+        /*
+         * Moves the region so the head is centered in it, if the head has gotten within a
+         * quarter of the region of its edge (or out of it). The region never goes past the
+         * edge of the board.
+         *
+         * Parameters:
+         * headX - x value of the head's board location
+         * headY - y value of the head's board location
+         * Returns: Whether the region moved (so everything in it needs redrawing)
+         */
+        int oldX = x, oldY = y;
+        if(headX < x + width / 4 || headX >= x + width - width / 4) {
+            x = Math.max(0, Math.min(headX - width / 2, boardWidth - width));
+        }
+        if(headY < y + height / 4 || headY >= y + height - height / 4) {
+            y = Math.max(0, Math.min(headY - height / 2, boardHeight - height));
+        }
+        return x != oldX || y != oldY;
+    }
+    public boolean contains(int boardX, int boardY) {
+        //Returns: Whether the box at (boardX, boardY) on the board is in the region
+        return boardX >= x && boardY >= y && boardX < x + width && boardY < y + height;
+    }
+    
+    /*
+     *
+     * Accessor methods.
+     *
+     */
+    public int getX() {
+        //Returns: The x value of the region's top-left box on the board
+        return x;
+    }
+    public int getY() {
+        //Returns: The y value of the region's top-left box on the board
+        return y;
+    }
+    public int getWidth() {
+        //Returns: The number of boxes of region length
+        return width;
+    }
+    public int getHeight() {
+        //Returns: The number of boxes of region width
+        return height;
+    }
+}
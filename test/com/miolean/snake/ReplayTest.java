@@ -0,0 +1,100 @@
+/*
+ * Miles Krusniak
+ * ReplayTest.java (Snake)
+ *
+ * Checks that a replay plays back exactly the game that was recorded. The
+ * games are played by the autopilot, with chaos mode and the Item menu
+ * toggled partway through, so that every kind of event ends up in the file.
+ */
+
+package com.miolean.snake;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+public class ReplayTest {
+    /*
+     * Round trips of bot-played games through ReplayRecorder and ReplayPlayer.
+     *
+     * Extends: Nothing
+     * Implements: Nothing
+     */
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    //How many games to play, and when to stop one the bot hasn't lost yet
+    final private static int GAMES = 20;
+    final private static int MAX_TICKS = 5000;
+
+    //When the options are toggled, and when to look at the game to compare it with a seek() later
+    final private static int CHAOS_ON_TICK = 40;
+    final private static int ITEM_OFF_TICK = 90;
+    final private static int CHECK_TICK = 150;
+    final private static int CHAOS_OFF_TICK = 300;
+    final private static int BONUS_TICK = 400;
+
+    @Test
+    public void botGamesPlayBackExactly() throws IOException {
+        for(long seed = 1; seed <= GAMES; seed++) {
+            //Toggle a different pickup each game
+            PickupRegistry registry = PickupRegistry.defaults();
+            List<PickupType> toggleable = new ArrayList<PickupType>();
+            for(PickupType type : registry.getTypes()) {
+                if(type.toggleable) toggleable.add(type);
+            }
+            PickupType toggled = toggleable.get((int) (seed % toggleable.size()));
+
+            //The bot gets its own numbers, so it doesn't change the game's
+            SnakeEngine engine = new SnakeEngine(30, 30, new GameRandom(seed), registry);
+            PathDriver bot = new PathDriver(new GameRandom(~seed));
+            engine.reset();
+            File file = folder.newFile("game" + seed + ".replay");
+            ReplayRecorder recorder = new ReplayRecorder(file);
+            engine.startRecording(recorder);
+            recorder.start(engine.getTick());
+
+            int checkPoints = -1, checkSize = -1;
+            while(!engine.isDead() && engine.getTick() < MAX_TICKS) {
+                long tick = engine.getTick();
+                if(tick == CHAOS_ON_TICK) engine.setChaosMode(true);
+                if(tick == ITEM_OFF_TICK) engine.setPickupEnabled(toggled.item, false);
+                if(tick == CHAOS_OFF_TICK) engine.setChaosMode(false);
+                if(tick == BONUS_TICK) engine.addBonus(-7);
+                if(tick == CHECK_TICK) {
+                    checkPoints = engine.points;
+                    checkSize = engine.snake.getSize();
+                }
+                engine.step(bot.nextDirection(engine));
+            }
+            engine.stopRecording();
+            ReplayRecorder.awaitWrites();
+
+            ReplayPlayer player = new ReplayPlayer(file);
+            assertTrue("game " + seed + " has an end", player.isFinished());
+            assertEquals(engine.getTick(), player.getEndTick());
+
+            player.playToEnd();
+            SnakeEngine played = player.getEngine();
+            assertEquals("game " + seed + " tick", engine.getTick(), played.getTick());
+            assertEquals("game " + seed + " points", engine.points, played.points);
+            assertEquals("game " + seed + " size", engine.snake.getSize(), played.snake.getSize());
+            assertEquals("game " + seed + " death", engine.isDead(), played.isDead());
+
+            //Seeking back starts over and plays forward to the same place
+            if(checkSize >= 0) {
+                player.seek(CHECK_TICK);
+                played = player.getEngine();
+                assertEquals(CHECK_TICK, played.getTick());
+                assertEquals("game " + seed + " points at " + CHECK_TICK, checkPoints, played.points);
+                assertEquals("game " + seed + " size at " + CHECK_TICK, checkSize, played.snake.getSize());
+            }
+        }
+    }
+}
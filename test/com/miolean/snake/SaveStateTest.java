@@ -0,0 +1,136 @@
+/*
+ * Miles Krusniak
+ * SaveStateTest.java (Snake)
+ *
+ * Checks that a saved game goes on exactly as it would have if it had never
+ * been saved, and that a save file that's no good is turned away without
+ * touching the pickup settings it was loaded with.
+ */
+
+package com.miolean.snake;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+public class SaveStateTest {
+    /*
+     * Round trips of bot-played games through SaveState.
+     *
+     * Extends: Nothing
+     * Implements: Nothing
+     */
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    //How many games to play, how far in they're saved, and how long to play on after that
+    final private static int GAMES = 20;
+    final private static int SAVE_TICK = 150;
+    final private static int MAX_TICKS = 3000;
+
+    //When the options are toggled, before the save
+    final private static int CHAOS_ON_TICK = 40;
+    final private static int ITEM_OFF_TICK = 90;
+
+    @Test
+    public void savedGamesGoOnInLockstep() throws IOException {
+        for(long seed = 1; seed <= GAMES; seed++) {
+            //Every other game is played on a board big enough to be stored in chunks that aren't all there
+            int size = (seed % 2 == 0) ? 30 : 300;
+            PickupRegistry registry = PickupRegistry.defaults();
+            SnakeEngine engine = new SnakeEngine(size, size, new GameRandom(seed), registry);
+            PathDriver bot = new PathDriver(new GameRandom(~seed));
+            engine.reset();
+            while(!engine.isDead() && engine.getTick() < SAVE_TICK) {
+                long tick = engine.getTick();
+                if(tick == CHAOS_ON_TICK) engine.setChaosMode(true);
+                if(tick == ITEM_OFF_TICK) engine.setPickupEnabled(toggled(registry, seed).item, false);
+                engine.step(bot.nextDirection(engine));
+            }
+            if(engine.isDead()) continue; //Nothing to go on with
+
+            File file = folder.newFile("game" + seed + ".save");
+            SaveState.save(engine, file);
+            PickupRegistry loadedRegistry = PickupRegistry.defaults();
+            SnakeEngine loaded = SaveState.load(file, loadedRegistry);
+            assertEquals("game " + seed + " pickups", registry.getEnabledMask(), loadedRegistry.getEnabledMask());
+            assertSameGame(engine, loaded, "game " + seed + " when loaded");
+
+            //The bot only looks at the first game, so both get the same turns
+            while(!engine.isDead() && engine.getTick() < MAX_TICKS) {
+                int direction = bot.nextDirection(engine);
+                engine.step(direction);
+                loaded.step(direction);
+                if(engine.getTick() % 100 == 0 || engine.isDead()) assertSameGame(engine, loaded, "game " + seed);
+            }
+        }
+    }
+
+    @Test
+    public void cutOffFileIsTurnedAway() throws IOException {
+        PickupRegistry registry = PickupRegistry.defaults();
+        SnakeEngine engine = new SnakeEngine(30, 30, new GameRandom(7), registry);
+        engine.reset();
+        engine.setPickupEnabled(toggled(registry, 0).item, false);
+        for(int i = 0; i < 10; i++) engine.step(SnakeEngine.NO_TURN);
+        File file = folder.newFile("cut.save");
+        SaveState.save(engine, file);
+
+        //Cut off at the very end, halfway, and partway through the header
+        long[] lengths = {file.length() - 1, file.length() / 2, 40};
+        for(long length : lengths) {
+            RandomAccessFile raw = new RandomAccessFile(file, "rw");
+            try {
+                raw.setLength(length);
+            } finally {
+                raw.close();
+            }
+            PickupRegistry loadedRegistry = PickupRegistry.defaults();
+            long mask = loadedRegistry.getEnabledMask();
+            try {
+                SaveState.load(file, loadedRegistry);
+                fail("a save cut off at " + length + " bytes was loaded");
+            }
+            catch(IOException e) {
+                //That's what it should do
+            }
+            assertEquals("pickups after a save cut off at " + length + " bytes", mask, loadedRegistry.getEnabledMask());
+        }
+    }
+
+    /*
+     *
+     * Helpers.
+     *
+     */
+    private static PickupType toggled(PickupRegistry registry, long seed) {
+        //Returns: A different pickup that can be turned off for each game
+        List<PickupType> toggleable = new ArrayList<PickupType>();
+        for(PickupType type : registry.getTypes()) {
+            if(type.toggleable) toggleable.add(type);
+        }
+        return toggleable.get((int) (seed % toggleable.size()));
+    }
+    private static void assertSameGame(SnakeEngine expected, SnakeEngine actual, String game) {
+        //Checks that two games stand exactly the same: the board, and everything scored on it
+        assertEquals(game + " tick", expected.getTick(), actual.getTick());
+        assertEquals(game + " points", expected.points, actual.points);
+        assertEquals(game + " speed", expected.speed, actual.speed);
+        assertEquals(game + " size", expected.snake.getSize(), actual.snake.getSize());
+        assertEquals(game + " death", expected.isDead(), actual.isDead());
+        assertEquals(game + " pickups", expected.getPickupsOnBoard(), actual.getPickupsOnBoard());
+        BoardStore board = expected.getBoard(), other = actual.getBoard();
+        for(int x = 0; x < expected.getWidth(); x++) {
+            for(int y = 0; y < expected.getHeight(); y++) {
+                if(board.get(x, y) != other.get(x, y)) fail(game + ": the boards differ at (" + x + ", " + y + ")");
+            }
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Miles Krusniak
+ * ScoreLogTest.java (Snake)
+ *
+ * Checks that a score log comes back right after the program died partway
+ * through using it: a record cut off partway through, a record that doesn't
+ * match its CRC, and an index that doesn't cover the whole log.
+ */
+
+package com.miolean.snake;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+public class ScoreLogTest {
+    /*
+     * Recovery of ScoreLogs from broken files.
+     *
+     * Extends: Nothing
+     * Implements: Nothing
+     */
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    //How many scores each log starts with. Score i is worth i * 10 points, so the best is the last.
+    final private static int SCORES = 20;
+    final private static long MODE = 0;
+
+    @Test
+    public void cutOffRecordIsDropped() throws IOException {
+        File file = fill(SCORES);
+        new File(file.getPath() + ".idx").delete(); //Like a crash before the index was saved
+
+        //Cut the last record off halfway through
+        long whole = ScoreLog.HEADER_SIZE + (long) SCORES * ScoreLog.RECORD_SIZE;
+        assertEquals(whole, file.length());
+        truncate(file, whole - ScoreLog.RECORD_SIZE / 2);
+
+        ScoreLog log = new ScoreLog(file);
+        assertEquals(SCORES - 1, log.getCount());
+        assertEquals(whole - ScoreLog.RECORD_SIZE, file.length());
+        assertBest(log, (SCORES - 1) * 10, (SCORES - 2) * 10, (SCORES - 3) * 10);
+
+        //New scores go right after the last good one
+        log.add(score(5));
+        log.close();
+        assertEquals(whole, file.length());
+        log = new ScoreLog(file);
+        assertEquals(SCORES, log.getCount());
+        log.close();
+    }
+
+    @Test
+    public void badRecordIsSkipped() throws IOException {
+        File file = fill(SCORES);
+        new File(file.getPath() + ".idx").delete();
+
+        //Make a score in the middle worth the most, without fixing its CRC
+        RandomAccessFile raw = new RandomAccessFile(file, "rw");
+        try {
+            raw.seek(ScoreLog.HEADER_SIZE + (long) (SCORES / 2) * ScoreLog.RECORD_SIZE);
+            raw.writeInt(1000000);
+        } finally {
+            raw.close();
+        }
+
+        //It's skipped, but the good ones after it are kept
+        long length = file.length();
+        ScoreLog log = new ScoreLog(file);
+        assertEquals(SCORES - 1, log.getCount());
+        assertEquals(length, file.length());
+        assertBest(log, SCORES * 10, (SCORES - 1) * 10, (SCORES - 2) * 10);
+        log.close();
+    }
+
+    @Test
+    public void indexCatchesUpOnTheRest() throws IOException {
+        File file = fill(SCORES); //Closing saves an index that covers all of these
+
+        //Scores written after the index was (as if the program died before saving it again),
+        //with a cut off record after them
+        int extra = 3;
+        ByteBuffer records = ByteBuffer.allocate(extra * ScoreLog.RECORD_SIZE + ScoreLog.RECORD_SIZE / 2);
+        for(int i = 0; i < extra; i++) ScoreLog.putRecord(records, score(1000 + i));
+        RandomAccessFile raw = new RandomAccessFile(file, "rw");
+        try {
+            raw.seek(raw.length());
+            raw.write(records.array());
+        } finally {
+            raw.close();
+        }
+
+        ScoreLog log = new ScoreLog(file);
+        assertEquals(SCORES + extra, log.getCount());
+        assertEquals(ScoreLog.HEADER_SIZE + (long) (SCORES + extra) * ScoreLog.RECORD_SIZE, file.length());
+        assertBest(log, 1002, 1001, 1000, SCORES * 10);
+        log.close();
+    }
+
+    /*
+     *
+     * Helpers.
+     *
+     */
+    private File fill(int scores) throws IOException {
+        /*
+         * Makes a log with some scores in it, and closes it.
+         *
+         * Parameters: scores - how many scores, worth 10, 20, 30... points
+         * Returns: The log file
+         */
+        File file = new File(folder.getRoot(), "scores.log");
+        ScoreLog log = new ScoreLog(file, ScoreLog.SYNC_NEVER);
+        for(int i = 1; i <= scores; i++) log.add(score(i * 10));
+        log.close();
+        return file;
+    }
+    private static SnakeScore score(int points) {
+        //Returns: A score worth points, in MODE
+        SnakeScore score = new SnakeScore(points);
+        score.playerName = "Player " + points;
+        return score;
+    }
+    private static void truncate(File file, long length) throws IOException {
+        //Cuts a file down to length bytes
+        RandomAccessFile raw = new RandomAccessFile(file, "rw");
+        try {
+            raw.setLength(length);
+        } finally {
+            raw.close();
+        }
+    }
+    private static void assertBest(ScoreLog log, int... points) {
+        //Checks the best scores of MODE, best first
+        SnakeScore[] best = log.getBest(MODE, points.length);
+        for(int i = 0; i < points.length; i++) assertEquals("score " + i, points[i], best[i].points);
+    }
+}